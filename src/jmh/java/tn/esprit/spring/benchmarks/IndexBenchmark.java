@@ -0,0 +1,178 @@
+package tn.esprit.spring.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.utility.DockerImageName;
+import tn.esprit.spring.GestionStationSkiApplication;
+import tn.esprit.spring.datagen.StationDataGenerator;
+import tn.esprit.spring.datagen.StationDataProperties;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The registration and subscription lookups on MySQL / InnoDB, in a Docker container (Testcontainers),
+ * with the schema of every migration ("v4") and with the indexes of the V4 migration dropped again ("pre-v4").
+ * "pre-v4" keeps the primary keys and the foreign key indexes InnoDB had before V4, so it is the schema
+ * the V4 migration was applied to.
+ * The statements are the ones Hibernate generates for the repository methods; their plans are logged on setup.
+ * mvn -P benchmarks test-compile exec:exec -Djmh.include=IndexBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class IndexBenchmark {
+
+    private static final int REGISTRATIONS_PER_SKIER = 10;
+    private static final int COURSES = 50_000;
+    private static final int WEEKS = 20;
+
+    @State(Scope.Benchmark)
+    public static class IndexedStation {
+
+        private static final Logger log = LoggerFactory.getLogger(IndexBenchmark.class);
+
+        private static final String[] PRE_V4 = {
+                "drop index idx_registration_course_week on registration",
+                "drop index idx_registration_week_skier_course on registration",
+                "drop index idx_subscription_type_start on subscription",
+                "drop index idx_subscription_end_date on subscription"};
+
+        @Param({"10000000"})
+        public int registrations;
+
+        @Param({"v4", "pre-v4"})
+        public String schema;
+
+        int skiers;
+        String countByCourseAndWeek;
+        String countDuplicates;
+        String firstExpiredPage;
+        Date today;
+
+        private MySQLContainer<?> mysql;
+        private ConfigurableApplicationContext context;
+        private JdbcTemplate jdbcTemplate;
+
+        @Setup(Level.Trial)
+        public void start() {
+            mysql = new MySQLContainer<>(DockerImageName.parse("mysql:8.0"))
+                    .withDatabaseName("stationSki")
+                    .withUrlParam("rewriteBatchedStatements", "true");
+            mysql.start();
+            context = new SpringApplicationBuilder(GestionStationSkiApplication.class)
+                    .profiles("bench")
+                    .web(WebApplicationType.NONE)
+                    // the bench profile is on H2 otherwise, these take precedence
+                    .run("--spring.datasource.url=" + mysql.getJdbcUrl(),
+                            "--spring.datasource.username=" + mysql.getUsername(),
+                            "--spring.datasource.password=" + mysql.getPassword(),
+                            "--spring.flyway.enabled=true",
+                            "--spring.jpa.hibernate.ddl-auto=validate",
+                            "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.MySQL5InnoDBDialect",
+                            "--logging.level.tn.esprit.spring.benchmarks=info");
+            jdbcTemplate = context.getBean(JdbcTemplate.class);
+            skiers = registrations / REGISTRATIONS_PER_SKIER;
+            StationDataProperties properties = new StationDataProperties();
+            properties.setSkiers(skiers);
+            properties.setCourses(COURSES);
+            properties.setWeeks(WEEKS);
+            properties.setRegistrationsPerSkier(REGISTRATIONS_PER_SKIER);
+            properties.setExcursionsPerSkier(0);
+            new StationDataGenerator(jdbcTemplate, properties, context).generate();
+            today = Date.valueOf(properties.getReferenceDate());
+
+            if ("pre-v4".equals(schema)) {
+                dropV4Indexes();
+            }
+            jdbcTemplate.execute("analyze table registration, subscription");
+            countByCourseAndWeek = "select count(r.num_registration) from registration r "
+                    + "where r.course_num_course = ? and r.num_week = ?";
+            countDuplicates = "select count(distinct r.num_registration) from registration r "
+                    + "where r.num_week = ? and r.skier_num_skier = ? and r.course_num_course = ?";
+            firstExpiredPage = "select s.num_sub, s.end_date from subscription s "
+                    + "where s.end_date <= ? and (s.end_date > ? or (s.end_date = ? and s.num_sub > ?)) "
+                    + "order by s.end_date, s.num_sub limit 100";
+
+            explain(countByCourseAndWeek, 1L, 1);
+            explain(countDuplicates, 1, 1L, 1L);
+            Date origin = Date.valueOf(LocalDate.of(1970, 1, 1));
+            explain(firstExpiredPage, today, origin, origin, 0L);
+        }
+
+        @TearDown(Level.Trial)
+        public void stop() {
+            context.close();
+            mysql.stop();
+        }
+
+        long count(String sql, Object... args) {
+            Long count = jdbcTemplate.queryForObject(sql, Long.class, args);
+            return count == null ? 0 : count;
+        }
+
+        List<Long> numSubs(String sql, Object... args) {
+            return jdbcTemplate.queryForList(sql, Long.class, args);
+        }
+
+        private void dropV4Indexes() {
+            Integer courseIndexes = jdbcTemplate.queryForObject("select count(*) from information_schema.statistics "
+                    + "where table_schema = database() and table_name = 'registration' and index_name = 'fk_registration_course'",
+                    Integer.class);
+            if (courseIndexes == null || courseIndexes == 0) {
+                // InnoDB dropped the foreign key index it had created once V4's (course, week) index could serve it
+                jdbcTemplate.execute("create index fk_registration_course on registration (course_num_course)");
+            }
+            for (String statement : PRE_V4) {
+                jdbcTemplate.execute(statement);
+            }
+        }
+
+        private void explain(String sql, Object... args) {
+            List<String> plan = jdbcTemplate.queryForList("explain format=tree " + sql, String.class, args);
+            log.info("[{}] {}{}", schema, sql, System.lineSeparator() + String.join(System.lineSeparator(), plan));
+        }
+    }
+
+    @Benchmark
+    public long countByCourseAndNumWeek(IndexedStation station) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return station.count(station.countByCourseAndWeek, 1L + random.nextInt(COURSES), 1 + random.nextInt(WEEKS));
+    }
+
+    @Benchmark
+    public long duplicateRegistrationCheck(IndexedStation station) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return station.count(station.countDuplicates, 1 + random.nextInt(WEEKS),
+                1L + random.nextInt(station.skiers), 1L + random.nextInt(COURSES));
+    }
+
+    @Benchmark
+    public List<Long> firstExpiredPage(IndexedStation station) {
+        Date origin = Date.valueOf(LocalDate.of(1970, 1, 1));
+        return station.numSubs(station.firstExpiredPage, station.today, origin, origin, 0L);
+    }
+}
@@ -0,0 +1,33 @@
+package tn.esprit.spring.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import tn.esprit.spring.entities.Registration;
+import tn.esprit.spring.services.IRegistrationServices;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A booking that is accepted: collective courses hold 6 skiers a week, so a few thousand bookings
+ * an iteration would fill them and leave the waiting list path to be measured.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class RegistrationBenchmark {
+
+    @Benchmark
+    public Registration addRegistrationAndAssignToSkierAndCourse(StationState station) {
+        Registration registration = new Registration();
+        registration.setNumWeek(station.randomWeek());
+        return station.bean(IRegistrationServices.class)
+                .addRegistrationAndAssignToSkierAndCourse(registration, station.randomSkier(), station.randomIndividualCourse());
+    }
+}
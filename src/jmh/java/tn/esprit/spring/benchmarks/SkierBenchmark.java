@@ -0,0 +1,44 @@
+package tn.esprit.spring.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import tn.esprit.spring.entities.Skier;
+import tn.esprit.spring.entities.Subscription;
+import tn.esprit.spring.entities.TypeSubscription;
+import tn.esprit.spring.services.ISkierServices;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class SkierBenchmark {
+
+    @Benchmark
+    public Skier addSkier(StationState station) {
+        Subscription subscription = new Subscription();
+        subscription.setStartDate(LocalDate.now());
+        subscription.setTypeSub(TypeSubscription.MONTHLY);
+        subscription.setPrice(120f);
+        Skier skier = new Skier();
+        skier.setFirstName("Bench");
+        skier.setLastName("Skier");
+        skier.setDateOfBirth(LocalDate.of(1990, 1, 1));
+        skier.setCity("Tunis");
+        skier.setSubscription(subscription);
+        return station.bean(ISkierServices.class).addSkier(skier);
+    }
+
+    @Benchmark
+    public Skier assignSkierToPiste(StationState station) {
+        return station.bean(ISkierServices.class).assignSkierToPiste(station.randomSkier(), station.randomPiste());
+    }
+}
@@ -0,0 +1,47 @@
+package tn.esprit.spring.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tn.esprit.spring.entities.Skier;
+import tn.esprit.spring.entities.TypeSubscription;
+import tn.esprit.spring.services.ISkierServices;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialisation only: the skiers, with their subscription and registrations, are loaded once.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SkierJsonBenchmark {
+
+    private ObjectMapper objectMapper;
+    private List<Skier> skiers;
+
+    @Setup(Level.Trial)
+    public void load(StationState station) {
+        objectMapper = station.bean(ObjectMapper.class);
+        skiers = station.bean(ISkierServices.class).retrieveSkiersBySubscriptionType(TypeSubscription.ANNUAL);
+    }
+
+    @Benchmark
+    public byte[] serializeSkiers() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(skiers);
+    }
+}
@@ -0,0 +1,34 @@
+package tn.esprit.spring.benchmarks;
+
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import tn.esprit.spring.datagen.StationDataGenerator;
+import tn.esprit.spring.datagen.StationDataProperties;
+
+/**
+ * Fills the freshly created schema with a fixed, reproducible station:
+ * ids of every table are 1..N in insertion order.
+ */
+final class StationSeed {
+
+    static final int SKIERS = 10_000;
+    static final int COURSES = 200;
+    static final int PISTES = 50;
+    static final int INSTRUCTORS = 40;
+    static final int WEEKS = 20;
+    static final int REGISTRATIONS_PER_SKIER = 3;
+
+    private StationSeed() {
+    }
+
+    static void seed(JdbcTemplate jdbcTemplate, ApplicationContext context) {
+        StationDataProperties properties = new StationDataProperties();
+        properties.setSkiers(SKIERS);
+        properties.setCourses(COURSES);
+        properties.setPistes(PISTES);
+        properties.setInstructors(INSTRUCTORS);
+        properties.setWeeks(WEEKS);
+        properties.setRegistrationsPerSkier(REGISTRATIONS_PER_SKIER);
+        new StationDataGenerator(jdbcTemplate, properties, context).generate();
+    }
+}
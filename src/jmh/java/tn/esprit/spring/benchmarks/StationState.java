@@ -0,0 +1,119 @@
+package tn.esprit.spring.benchmarks;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import tn.esprit.spring.GestionStationSkiApplication;
+import tn.esprit.spring.services.CourseWeek;
+import tn.esprit.spring.services.InstructorWeeksIndex;
+import tn.esprit.spring.services.RecurringRevenueAggregator;
+import tn.esprit.spring.services.RegistrationCapacityLedger;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The whole application on an in-memory H2 database seeded with a season worth of data,
+ * shared by all the benchmarks of a trial.
+ * Every iteration starts from the seeded station: the rows the benchmarks wrote during the previous one
+ * are deleted and the in-memory aggregates realigned, so the courses do not fill up over the trial.
+ */
+@State(Scope.Benchmark)
+public class StationState {
+
+    private ConfigurableApplicationContext context;
+    private JdbcTemplate jdbcTemplate;
+
+    private long seededRegistrations;
+    private long seededSkiers;
+    private long seededSubscriptions;
+    private long[] individualCourses;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = new SpringApplicationBuilder(GestionStationSkiApplication.class)
+                .profiles("bench")
+                .web(WebApplicationType.NONE)
+                .run();
+        jdbcTemplate = bean(JdbcTemplate.class);
+        StationSeed.seed(jdbcTemplate, context);
+        seededRegistrations = maxId("registration", "num_registration");
+        seededSkiers = maxId("skier", "num_skier");
+        seededSubscriptions = maxId("subscription", "num_sub");
+        // the excursions of the seed, put back before each iteration
+        jdbcTemplate.execute("create table excursion_seed as select * from excursion");
+        individualCourses = jdbcTemplate.queryForList("select num_course from course where type_course = 'INDIVIDUAL'",
+                Long.class).stream().mapToLong(Long::longValue).toArray();
+        // both were built on startup, before the seed
+        bean(InstructorWeeksIndex.class).rebuild();
+        bean(RecurringRevenueAggregator.class).reconcile();
+    }
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        Map<CourseWeek, Integer> emptied = new HashMap<>();
+        jdbcTemplate.query("select distinct course_num_course, num_week from waitlist_entry",
+                (RowCallbackHandler) row -> emptied.put(new CourseWeek(row.getLong(1), row.getInt(2)), 0));
+        jdbcTemplate.update("delete from waitlist_entry");
+        jdbcTemplate.update("delete from registration where num_registration > ?", seededRegistrations);
+        jdbcTemplate.update("delete from excursion");
+        jdbcTemplate.update("insert into excursion select * from excursion_seed");
+        jdbcTemplate.update("delete from skier where num_skier > ?", seededSkiers);
+        jdbcTemplate.update("delete from subscription where num_sub > ?", seededSubscriptions);
+        // the second-level cache still holds the pistes and courses as the benchmarks left them
+        bean(EntityManagerFactory.class).getCache().evictAll();
+
+        RegistrationCapacityLedger capacityLedger = bean(RegistrationCapacityLedger.class);
+        capacityLedger.waitlistLoaded(emptied);
+        // no booking in flight between iterations, every slot goes back to the seeded count
+        capacityLedger.reconcile();
+        bean(InstructorWeeksIndex.class).rebuild();
+        bean(RecurringRevenueAggregator.class).reconcile();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    public <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    public long randomSkier() {
+        return 1 + ThreadLocalRandom.current().nextInt(StationSeed.SKIERS);
+    }
+
+    public long randomCourse() {
+        return 1 + ThreadLocalRandom.current().nextInt(StationSeed.COURSES);
+    }
+
+    /**
+     * A course without a capacity: bookings in it are accepted however many the iteration makes.
+     */
+    public long randomIndividualCourse() {
+        return individualCourses[ThreadLocalRandom.current().nextInt(individualCourses.length)];
+    }
+
+    public long randomPiste() {
+        return 1 + ThreadLocalRandom.current().nextInt(StationSeed.PISTES);
+    }
+
+    public int randomWeek() {
+        return 1 + ThreadLocalRandom.current().nextInt(StationSeed.WEEKS);
+    }
+
+    private long maxId(String table, String id) {
+        Long max = jdbcTemplate.queryForObject("select coalesce(max(" + id + "), 0) from " + table, Long.class);
+        return max == null ? 0 : max;
+    }
+}
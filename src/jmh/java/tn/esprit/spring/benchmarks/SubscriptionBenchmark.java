@@ -0,0 +1,33 @@
+package tn.esprit.spring.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import tn.esprit.spring.services.ISubscriptionServices;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class SubscriptionBenchmark {
+
+    @Benchmark
+    public Float retrieveMonthlyRecurringRevenue(StationState station) {
+        return station.bean(ISubscriptionServices.class).retrieveMonthlyRecurringRevenue();
+    }
+
+    /**
+     * The same figure rebuilt from the subscription table.
+     */
+    @Benchmark
+    public Float reconcileMonthlyRecurringRevenue(StationState station) {
+        return station.bean(ISubscriptionServices.class).reconcileMonthlyRecurringRevenue();
+    }
+}
@@ -0,0 +1,31 @@
+package tn.esprit.spring.configs;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Binary renderings of every request and response body, for clients sending
+ * Accept / Content-Type application/cbor or application/x-jackson-smile.
+ * Both mappers come from Boot's (prototype) builder, so they share the spring.jackson.* settings and modules of the JSON one.
+ * They replace Spring MVC's default CBOR and Smile converters in place, after the JSON converter,
+ * which stays the default for clients that do not ask for anything else.
+ * Protobuf is not offered: its converter only writes protoc-generated messages, not these entities.
+ */
+@Configuration
+public class BinaryFormatsConfig {
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+}
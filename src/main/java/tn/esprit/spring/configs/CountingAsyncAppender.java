@@ -0,0 +1,34 @@
+package tn.esprit.spring.configs;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+
+/**
+ * Logback's ring buffer in front of the console, configured in logback-spring.xml never to block
+ * the logging thread: when the buffer is full the event is dropped and counted as logback.events.dropped.
+ * Logback instantiates it before Spring starts, hence the global registry (see SessionMetricsListener).
+ * The count is taken from the remaining capacity just before the offer, so concurrent appends can skew it slightly.
+ */
+public class CountingAsyncAppender extends AsyncAppender {
+
+    private Counter dropped;
+
+    @Override
+    public void start() {
+        dropped = Counter.builder("logback.events.dropped")
+                .description("Log events dropped because the asynchronous appender queue was full")
+                .tag("appender", getName())
+                .register(Metrics.globalRegistry);
+        super.start();
+    }
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        if (getRemainingCapacity() == 0) {
+            dropped.increment();
+        }
+        super.append(event);
+    }
+}
@@ -0,0 +1,95 @@
+package tn.esprit.spring.configs;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Replaces the single auto-configured DataSource once station.datasource.replicas are declared:
+ * writes and read-write transactions on spring.datasource.*, read-only transactions on the replicas.
+ * Every pool gets the spring.datasource.hikari.* settings.
+ * With open-in-view, the EntityManager of a request lives from its first transaction to the response.
+ * Hibernate would keep the connection of that first transaction for the whole request, so a read-only
+ * transaction after a write would stay on the primary, and a write after a read would be sent to a replica.
+ * The connection is released after each transaction instead, and the next one is routed on its own.
+ * Nothing here takes the meter registry: the routing DataSource and the lag monitor bind their meters
+ * and the pool metrics themselves (MeterBinder), once the registry exists.
+ */
+@Configuration
+@ConditionalOnProperty(name = "station.datasource.replicas[0].url")
+@EnableConfigurationProperties(ReplicaDataSourceProperties.class)
+public class DataSourceRoutingConfig {
+
+    @Bean(destroyMethod = "close")
+    public ReadWriteRoutingDataSource routingDataSource(DataSourceProperties primaryProperties,
+                                                        ReplicaDataSourceProperties replicaProperties,
+                                                        Environment environment) {
+        // what the auto-configured pool would have been bound from
+        HikariConfig settings = Binder.get(environment).bind("spring.datasource.hikari", HikariConfig.class)
+                .orElseGet(HikariConfig::new);
+
+        HikariDataSource primary = pool(settings, ReadWriteRoutingDataSource.PRIMARY);
+        primary.setJdbcUrl(primaryProperties.determineUrl());
+        primary.setUsername(primaryProperties.determineUsername());
+        primary.setPassword(primaryProperties.determinePassword());
+        primary.setDriverClassName(primaryProperties.determineDriverClassName());
+
+        Map<String, HikariDataSource> replicas = new LinkedHashMap<>();
+        List<ReplicaDataSourceProperties.Replica> declared = replicaProperties.getReplicas();
+        for (int i = 0; i < declared.size(); i++) {
+            ReplicaDataSourceProperties.Replica replica = declared.get(i);
+            HikariDataSource pool = pool(settings, "replica-" + i);
+            pool.setJdbcUrl(replica.getUrl());
+            pool.setUsername(replica.getUsername() == null ? primaryProperties.determineUsername() : replica.getUsername());
+            pool.setPassword(replica.getPassword() == null ? primaryProperties.determinePassword() : replica.getPassword());
+            pool.setReadOnly(true);
+            replicas.put(pool.getPoolName(), pool);
+        }
+        ReadWriteRoutingDataSource routingDataSource = new ReadWriteRoutingDataSource(primary, replicas);
+        routingDataSource.afterPropertiesSet();
+        return routingDataSource;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer releaseConnectionAfterTransaction() {
+        return properties -> properties.put(AvailableSettings.CONNECTION_HANDLING,
+                PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(ReadWriteRoutingDataSource routingDataSource,
+                                               ReplicaDataSourceProperties replicaProperties) {
+        ReplicaLagMonitor monitor = new ReplicaLagMonitor(routingDataSource, replicaProperties.getMaxLagMs());
+        monitor.check();
+        return monitor;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReadWriteRoutingDataSource routingDataSource) {
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    private static HikariDataSource pool(HikariConfig settings, String poolName) {
+        HikariDataSource pool = new HikariDataSource();
+        settings.copyStateTo(pool);
+        pool.setPoolName(poolName);
+        return pool;
+    }
+}
@@ -0,0 +1,56 @@
+package tn.esprit.spring.configs;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Second-level and query cache hits and misses of the whole application, read from Hibernate's statistics
+ * (hibernate.generate_statistics) under the names Spring Boot's Hibernate metrics use:
+ * hibernate.second.level.cache.requests and hibernate.query.cache.requests, tagged result=hit|miss.
+ * The EntityManagerFactory is looked up on the first read, not when the registry binds the meters,
+ * so the registry does not depend on the persistence unit.
+ */
+@Component
+@RequiredArgsConstructor
+public class HibernateCacheMetrics implements MeterBinder {
+
+    private final ObjectProvider<EntityManagerFactory> entityManagerFactory;
+
+    private volatile Statistics statistics;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        requests(registry, "hibernate.second.level.cache.requests", "hit", Statistics::getSecondLevelCacheHitCount);
+        requests(registry, "hibernate.second.level.cache.requests", "miss", Statistics::getSecondLevelCacheMissCount);
+        requests(registry, "hibernate.query.cache.requests", "hit", Statistics::getQueryCacheHitCount);
+        requests(registry, "hibernate.query.cache.requests", "miss", Statistics::getQueryCacheMissCount);
+    }
+
+    private void requests(MeterRegistry registry, String name, String result, ToDoubleFunction<Statistics> count) {
+        FunctionCounter.builder(name, this, metrics -> metrics.read(count))
+                .tag("result", result)
+                .register(registry);
+    }
+
+    private double read(ToDoubleFunction<Statistics> count) {
+        Statistics current = statistics;
+        if (current == null) {
+            EntityManagerFactory factory = entityManagerFactory.getIfAvailable();
+            if (factory == null) {
+                return 0;
+            }
+            current = factory.unwrap(SessionFactory.class).getStatistics();
+            statistics = current;
+        }
+        return count.applyAsDouble(current);
+    }
+}
@@ -0,0 +1,18 @@
+package tn.esprit.spring.configs;
+
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class JacksonConfig {
+
+    /**
+     * Entities name the fields= filter (see FieldSelection); when a response sets none, all their fields are written.
+     */
+    @Bean
+    public Jackson2ObjectMapperBuilderCustomizer serializeAllWithoutFilter() {
+        return builder -> builder.filters(new SimpleFilterProvider().setFailOnUnknownId(false));
+    }
+}
@@ -0,0 +1,142 @@
+package tn.esprit.spring.configs;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Hands out connections of a read-only transaction from the replicas, round robin among those
+ * {@link ReplicaLagMonitor} reports in sync, and every other connection from the primary.
+ * Has to sit behind a LazyConnectionDataSourceProxy: the read-only flag of the transaction
+ * is only known once the transaction has begun, after the connection was asked for.
+ * Reads that must not lag behind the writes, whether in a read-only transaction or not, go through {@link #onPrimary}.
+ * The routing counts and the pool metrics are bound once the meter registry exists: the registry's own
+ * binders reach the persistence unit, and so this DataSource.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource implements MeterBinder {
+
+    public static final String PRIMARY = "primary";
+
+    private static final ThreadLocal<Boolean> PRIMARY_ONLY = new ThreadLocal<>();
+
+    private final HikariDataSource primary;
+    private final Map<String, HikariDataSource> replicas;
+    private final Set<String> inSync = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger next = new AtomicInteger();
+    private final Map<String, LongAdder> routed = new HashMap<>();
+    private final LongAdder fallbacks = new LongAdder();
+
+    public ReadWriteRoutingDataSource(HikariDataSource primary, Map<String, HikariDataSource> replicas) {
+        this.primary = primary;
+        this.replicas = Collections.unmodifiableMap(new LinkedHashMap<>(replicas));
+        Map<Object, Object> targets = new HashMap<>(replicas);
+        targets.put(PRIMARY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        for (Object pool : targets.keySet()) {
+            routed.put((String) pool, new LongAdder());
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        routed.forEach((pool, connections) -> counter(registry, pool, "routed", connections));
+        counter(registry, PRIMARY, "no-replica-in-sync", fallbacks);
+        bindPool(primary, registry);
+        replicas.values().forEach(replica -> bindPool(replica, registry));
+    }
+
+    /**
+     * Runs the read with every connection it asks for taken from the primary.
+     */
+    public static <T> T onPrimary(Supplier<T> read) {
+        Boolean outer = PRIMARY_ONLY.get();
+        PRIMARY_ONLY.set(Boolean.TRUE);
+        try {
+            return read.get();
+        } finally {
+            if (outer == null) {
+                PRIMARY_ONLY.remove();
+            }
+        }
+    }
+
+    public HikariDataSource getPrimary() {
+        return primary;
+    }
+
+    public Map<String, HikariDataSource> getReplicas() {
+        return replicas;
+    }
+
+    public void markInSync(String replica, boolean synced) {
+        if (synced) {
+            inSync.add(replica);
+        } else {
+            inSync.remove(replica);
+        }
+    }
+
+    public boolean isInSync(String replica) {
+        return inSync.contains(replica);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || PRIMARY_ONLY.get() != null) {
+            routed.get(PRIMARY).increment();
+            return PRIMARY;
+        }
+        List<String> candidates = new ArrayList<>();
+        for (String replica : replicas.keySet()) {
+            if (inSync.contains(replica)) {
+                candidates.add(replica);
+            }
+        }
+        if (candidates.isEmpty()) {
+            fallbacks.increment();
+            return PRIMARY;
+        }
+        String replica = candidates.get(Math.floorMod(next.getAndIncrement(), candidates.size()));
+        routed.get(replica).increment();
+        return replica;
+    }
+
+    public void close() {
+        replicas.values().forEach(HikariDataSource::close);
+        primary.close();
+    }
+
+    private static void counter(MeterRegistry registry, String pool, String reason, LongAdder connections) {
+        FunctionCounter.builder("datasource.routing.connections", connections, LongAdder::doubleValue)
+                .description("Connections handed out by the read/write routing DataSource")
+                .tag("pool", pool)
+                .tag("reason", reason)
+                .register(registry);
+    }
+
+    /**
+     * Hikari takes its metrics tracker before or after the pool has started, but only once.
+     */
+    private static void bindPool(HikariDataSource pool, MeterRegistry registry) {
+        if (pool.getMetricRegistry() == null && pool.getMetricsTrackerFactory() == null) {
+            pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package tn.esprit.spring.configs;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read replicas next to the primary spring.datasource.*, bound from station.datasource.*.
+ */
+@Data
+@ConfigurationProperties(prefix = "station.datasource")
+public class ReplicaDataSourceProperties {
+
+    private List<Replica> replicas = new ArrayList<>();
+
+    /** A replica further behind the primary than this gets no reads. */
+    private long maxLagMs = 5_000;
+
+    @Data
+    public static class Replica {
+        private String url;
+        private String username;
+        private String password;
+    }
+}
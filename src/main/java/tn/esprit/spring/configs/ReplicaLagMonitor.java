@@ -0,0 +1,78 @@
+package tn.esprit.spring.configs;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Measures how far each replica is behind the primary with a heartbeat row: the primary gets
+ * the current time written into replica_heartbeat, each replica is asked which time it has.
+ * A replica that cannot answer, or lags more than maxLagMs, is taken out of the read rotation
+ * until it catches up.
+ */
+@Slf4j
+public class ReplicaLagMonitor implements MeterBinder {
+
+    private final ReadWriteRoutingDataSource routingDataSource;
+    private final long maxLagMs;
+    private final JdbcTemplate primary;
+    private final Map<String, Double> lags = new ConcurrentHashMap<>();
+
+    public ReplicaLagMonitor(ReadWriteRoutingDataSource routingDataSource, long maxLagMs) {
+        this.routingDataSource = routingDataSource;
+        this.maxLagMs = maxLagMs;
+        this.primary = new JdbcTemplate(routingDataSource.getPrimary());
+        for (String replica : routingDataSource.getReplicas().keySet()) {
+            lags.put(replica, Double.NaN);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (String replica : routingDataSource.getReplicas().keySet()) {
+            Gauge.builder("datasource.replica.lag", lags, l -> l.get(replica))
+                    .description("Milliseconds the replica is behind the primary, NaN when unknown")
+                    .baseUnit("milliseconds")
+                    .tag("pool", replica)
+                    .register(registry);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${station.datasource.lag-check-ms:1000}")
+    public void check() {
+        long now = System.currentTimeMillis();
+        try {
+            if (primary.update("update replica_heartbeat set beat_at = ? where id = 1", now) == 0) {
+                primary.update("insert into replica_heartbeat (id, beat_at) values (1, ?)", now);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Replica heartbeat could not be written on the primary: {}", e.getMessage());
+        }
+        for (Map.Entry<String, HikariDataSource> replica : routingDataSource.getReplicas().entrySet()) {
+            Double lag = lagOf(replica.getValue(), now);
+            lags.put(replica.getKey(), lag);
+            boolean inSync = !lag.isNaN() && lag <= maxLagMs;
+            if (inSync != routingDataSource.isInSync(replica.getKey())) {
+                log.info("Replica {} {} (lag {} ms)", replica.getKey(), inSync ? "back in the read rotation" : "out of the read rotation", lag);
+            }
+            routingDataSource.markInSync(replica.getKey(), inSync);
+        }
+    }
+
+    private Double lagOf(HikariDataSource replica, long now) {
+        try {
+            List<Long> beats = new JdbcTemplate(replica).queryForList("select beat_at from replica_heartbeat where id = 1", Long.class);
+            return beats.isEmpty() ? Double.NaN : (double) Math.max(0, now - beats.get(0));
+        } catch (RuntimeException e) {
+            return Double.NaN;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package tn.esprit.spring.configs;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import tn.esprit.spring.services.RetryOnConflict;
+import tn.esprit.spring.services.StaleVersionException;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Retries @RetryOnConflict methods that fail on an optimistic locking conflict, with a randomized
+ * exponential backoff so that the transactions that collided do not collide again.
+ * Ordered before the transaction advice: every attempt runs in a transaction of its own, and the
+ * rollback of the failed one clears the request's persistence context so the rows are read again.
+ * A method called from a transaction that is already running is not retried, that transaction is lost anyway.
+ * station.conflicts counts per service method the conflicts that were retried, the calls that succeeded after
+ * a retry (recovered) and the ones that ran out of attempts (exhausted). Conflicts of the other methods
+ * show up in station.service.calls with exception=ObjectOptimisticLockingFailureException.
+ */
+@Slf4j
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class RetryOnConflictAspect {
+
+    public static final String CONFLICTS = "station.conflicts";
+
+    private final MeterRegistry meterRegistry;
+
+    private final ConcurrentMap<CounterKey, Counter> counters = new ConcurrentHashMap<>();
+
+    @Around("@annotation(tn.esprit.spring.services.RetryOnConflict)")
+    public Object retry(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return joinPoint.proceed();
+        }
+        RetryOnConflict retry = retryOnConflict(joinPoint);
+        String service = joinPoint.getTarget().getClass().getSimpleName();
+        String method = joinPoint.getSignature().getName();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                Object result = joinPoint.proceed();
+                if (attempt > 1) {
+                    count(service, method, "recovered");
+                }
+                return result;
+            } catch (StaleVersionException e) {
+                // the client's precondition, the next attempt would read the same newer version
+                throw e;
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= retry.maxAttempts()) {
+                    count(service, method, "exhausted");
+                    log.warn("conflict service={} method={} attempts={} gave up", service, method, attempt);
+                    throw e;
+                }
+                count(service, method, "retried");
+                log.debug("conflict service={} method={} attempt={} retrying", service, method, attempt);
+                pause(retry.backoffMs() << (attempt - 1), e);
+            }
+        }
+    }
+
+    /**
+     * The annotation of the implementation, the signature may be the one of the interface.
+     */
+    private static RetryOnConflict retryOnConflict(ProceedingJoinPoint joinPoint) {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        Method implementation = AopUtils.getMostSpecificMethod(method, joinPoint.getTarget().getClass());
+        RetryOnConflict retry = AnnotationUtils.findAnnotation(implementation, RetryOnConflict.class);
+        return retry != null ? retry : AnnotationUtils.findAnnotation(method, RetryOnConflict.class);
+    }
+
+    private static void pause(long maxMs, OptimisticLockingFailureException conflict) {
+        if (maxMs <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.MILLISECONDS.sleep(ThreadLocalRandom.current().nextLong(maxMs + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw conflict;
+        }
+    }
+
+    private void count(String service, String method, String outcome) {
+        CounterKey key = new CounterKey(service, method, outcome);
+        Counter counter = counters.get(key);
+        if (counter == null) {
+            counter = counters.computeIfAbsent(key, k -> Counter.builder(CONFLICTS)
+                    .description("Optimistic locking conflicts of the @RetryOnConflict service methods")
+                    .tag("service", k.service)
+                    .tag("method", k.method)
+                    .tag("outcome", k.outcome)
+                    .register(meterRegistry));
+        }
+        counter.increment();
+    }
+
+    @EqualsAndHashCode
+    @AllArgsConstructor
+    private static final class CounterKey {
+        private final String service;
+        private final String method;
+        private final String outcome;
+    }
+}
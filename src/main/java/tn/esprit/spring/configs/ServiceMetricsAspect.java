@@ -0,0 +1,77 @@
+package tn.esprit.spring.configs;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Times every method of the I*Services implementations as station.service.calls,
+ * tagged with the service, the method and how the call ended: success, null (nothing found,
+ * or put on a waiting list) or exception. Repository calls and HTTP requests are timed by
+ * Spring Boot itself (spring.data.repository.invocations and http.server.requests).
+ * The timers are registered once per service, method, outcome and exception, then reused.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class ServiceMetricsAspect {
+
+    public static final String SERVICE_CALLS = "station.service.calls";
+
+    private final MeterRegistry meterRegistry;
+
+    private final ConcurrentMap<TimerKey, Timer> timers = new ConcurrentHashMap<>();
+
+    @Around("execution(public * tn.esprit.spring.services.I*Services+.*(..))")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        MethodSignature signature = (MethodSignature) joinPoint.getSignature();
+        String outcome = "exception";
+        Class<?> exception = null;
+        try {
+            Object result = joinPoint.proceed();
+            boolean returnsValue = signature.getReturnType() != void.class;
+            outcome = returnsValue && result == null ? "null" : "success";
+            return result;
+        } catch (Throwable e) {
+            exception = e.getClass();
+            throw e;
+        } finally {
+            sample.stop(timer(new TimerKey(joinPoint.getTarget().getClass(), signature.getMethod(), outcome, exception)));
+        }
+    }
+
+    private Timer timer(TimerKey key) {
+        Timer timer = timers.get(key);
+        if (timer != null) {
+            return timer;
+        }
+        return timers.computeIfAbsent(key, k -> Timer.builder(SERVICE_CALLS)
+                .tag("service", k.service.getSimpleName())
+                .tag("method", k.method.getName())
+                .tag("outcome", k.outcome)
+                .tag("exception", k.exception == null ? "none" : k.exception.getSimpleName())
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+    }
+
+    @EqualsAndHashCode
+    @AllArgsConstructor
+    private static final class TimerKey {
+        private final Class<?> service;
+        private final Method method;
+        private final String outcome;
+        private final Class<?> exception;
+    }
+}
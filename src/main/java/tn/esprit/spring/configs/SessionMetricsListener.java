@@ -0,0 +1,59 @@
+package tn.esprit.spring.configs;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Metrics;
+import org.hibernate.BaseSessionEventListener;
+
+/**
+ * Per Hibernate session, so per request with open-in-view: how many SQL statements were run
+ * and how many second-level cache lookups hit or missed, as distributions over the sessions.
+ * Hibernate instantiates it (hibernate.session.events.auto), hence the global registry,
+ * which Spring Boot's registry is part of.
+ */
+public class SessionMetricsListener extends BaseSessionEventListener {
+
+    private static final DistributionSummary STATEMENTS = summary("hibernate.session.statements",
+            "SQL statements executed by one Hibernate session", "all");
+    private static final DistributionSummary CACHE_HITS = summary("hibernate.session.cache.gets",
+            "Second-level cache lookups of one Hibernate session", "hit");
+    private static final DistributionSummary CACHE_MISSES = summary("hibernate.session.cache.gets",
+            "Second-level cache lookups of one Hibernate session", "miss");
+
+    private int statements;
+    private int cacheHits;
+    private int cacheMisses;
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        statements++;
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        statements++;
+    }
+
+    @Override
+    public void cacheGetEnd(boolean hit) {
+        if (hit) {
+            cacheHits++;
+        } else {
+            cacheMisses++;
+        }
+    }
+
+    @Override
+    public void end() {
+        STATEMENTS.record(statements);
+        CACHE_HITS.record(cacheHits);
+        CACHE_MISSES.record(cacheMisses);
+    }
+
+    private static DistributionSummary summary(String name, String description, String result) {
+        return DistributionSummary.builder(name)
+                .description(description)
+                .tag("result", result)
+                .publishPercentileHistogram()
+                .register(Metrics.globalRegistry);
+    }
+}
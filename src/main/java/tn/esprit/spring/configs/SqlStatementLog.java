@@ -0,0 +1,109 @@
+package tn.esprit.spring.configs;
+
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Receives the duration of every JDBC statement run through the application DataSource.
+ * Keeps count, total and max per SQL string, and logs the statements over the slow threshold
+ * (plus a sample of the others) with their bind parameters and the service method that ran them.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class SqlStatementLog {
+
+    static final String OTHER_STATEMENTS = "(other statements)";
+
+    private static final String SERVICES_PACKAGE = "tn.esprit.spring.services.";
+
+    private final SqlStatementProperties properties;
+
+    private final ConcurrentMap<String, Stats> stats = new ConcurrentHashMap<>();
+
+    public void record(String sql, List<Object> parameters, int batchSize, long nanos) {
+        statsOf(sql).add(nanos);
+
+        long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+        if (millis >= properties.getSlowThresholdMs()) {
+            log.warn("Slow SQL, {} ms in {}: {} {}{}", millis, caller(), sql, parameters, batch(batchSize));
+        } else if (properties.getSampleRate() > 0 && ThreadLocalRandom.current().nextDouble() < properties.getSampleRate()) {
+            log.info("Sampled SQL, {} ms in {}: {} {}{}", millis, caller(), sql, parameters, batch(batchSize));
+        }
+    }
+
+    /**
+     * Stats of every statement seen since startup or the last reset, highest total time first.
+     */
+    public List<StatementStats> statements() {
+        List<StatementStats> statements = new ArrayList<>();
+        stats.forEach((sql, stat) -> statements.add(stat.snapshot(sql)));
+        statements.sort(Comparator.comparingDouble(StatementStats::getTotalMs).reversed());
+        return statements;
+    }
+
+    public void reset() {
+        stats.clear();
+    }
+
+    private Stats statsOf(String sql) {
+        Stats stat = stats.get(sql);
+        if (stat != null) {
+            return stat;
+        }
+        // SQL built with literals would otherwise grow the map without bound
+        String key = stats.size() < properties.getMaxStatements() ? sql : OTHER_STATEMENTS;
+        return stats.computeIfAbsent(key, k -> new Stats());
+    }
+
+    /**
+     * First services frame of the current stack; only walked for the statements that get logged.
+     */
+    private static String caller() {
+        for (StackTraceElement frame : new Throwable().getStackTrace()) {
+            if (frame.getClassName().startsWith(SERVICES_PACKAGE) && !frame.getClassName().contains("$$")) {
+                return frame.getClassName().substring(SERVICES_PACKAGE.length()) + "." + frame.getMethodName();
+            }
+        }
+        return "(no service)";
+    }
+
+    private static String batch(int batchSize) {
+        return batchSize > 0 ? " batch of " + batchSize : "";
+    }
+
+    private static final class Stats {
+        final LongAdder count = new LongAdder();
+        final LongAdder totalNanos = new LongAdder();
+        final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        void add(long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+        }
+
+        StatementStats snapshot(String sql) {
+            return new StatementStats(sql, count.sum(), totalNanos.sum() / 1e6, maxNanos.get() / 1e6);
+        }
+    }
+
+    @Value
+    public static class StatementStats {
+        String sql;
+        long count;
+        double totalMs;
+        double maxMs;
+    }
+}
@@ -0,0 +1,171 @@
+package tn.esprit.spring.configs;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Wraps the application DataSource (the bean named dataSource, routing or not) so that every
+ * statement execution is timed and handed to {@link SqlStatementLog}. Replaces spring.jpa.show-sql.
+ */
+@Configuration
+@EnableConfigurationProperties(SqlStatementProperties.class)
+public class SqlStatementLogConfig {
+
+    private static final String DATA_SOURCE_BEAN = "dataSource";
+
+    private static final int MAX_PARAMETER_LENGTH = 100;
+
+    static final String BATCH_STATEMENTS = "(batch of statements)";
+
+    @Bean
+    public SqlStatementLog sqlStatementLog(SqlStatementProperties properties) {
+        return new SqlStatementLog(properties);
+    }
+
+    @Bean
+    public static BeanPostProcessor sqlStatementLogDataSourcePostProcessor(ObjectProvider<SqlStatementLog> statementLog) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource && DATA_SOURCE_BEAN.equals(beanName)) {
+                    return proxy(new Forwarding(bean, statementLog.getObject()), dataSourceInterfaces(bean));
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * Keeps the pool closeable, so that the inferred destroy method of the bean still closes it.
+     */
+    static Class<?>[] dataSourceInterfaces(Object dataSource) {
+        return dataSource instanceof Closeable
+                ? new Class<?>[]{DataSource.class, Closeable.class} : new Class<?>[]{DataSource.class};
+    }
+
+    private static Object proxy(InvocationHandler handler, Class<?>... types) {
+        return Proxy.newProxyInstance(SqlStatementLogConfig.class.getClassLoader(), types, handler);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    /**
+     * DataSource and Connection: forwards the calls and wraps the statements handed out.
+     */
+    private static final class Forwarding implements InvocationHandler {
+        private final Object target;
+        private final SqlStatementLog statementLog;
+
+        Forwarding(Object target, SqlStatementLog statementLog) {
+            this.target = target;
+            this.statementLog = statementLog;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = SqlStatementLogConfig.invoke(target, method, args);
+            if (result instanceof Connection) {
+                return proxy(new Forwarding(result, statementLog), Connection.class);
+            }
+            if (result instanceof Statement) {
+                // prepareStatement and prepareCall take the SQL first, createStatement gets it at execution
+                String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : null;
+                Class<?> type = result instanceof CallableStatement ? CallableStatement.class
+                        : result instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+                return proxy(new Timing(result, sql, statementLog), type);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Statement: records the bind parameters and times the executions.
+     */
+    private static final class Timing implements InvocationHandler {
+        private final Object target;
+        private final String preparedSql;
+        private final SqlStatementLog statementLog;
+        private final List<Object> parameters = new ArrayList<>();
+        private int batchSize;
+        // Statement.addBatch(String): the prepared SQL is null then
+        private String batchSql;
+
+        Timing(Object target, String preparedSql, SqlStatementLog statementLog) {
+            this.target = target;
+            this.preparedSql = preparedSql;
+            this.statementLog = statementLog;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                // setNull(index, sqlType): the second argument is not the value
+                bind((Integer) args[0], "setNull".equals(name) ? null : args[1]);
+            } else if ("clearParameters".equals(name)) {
+                parameters.clear();
+            } else if ("addBatch".equals(name)) {
+                batchSize++;
+                if (args != null && args.length == 1 && args[0] instanceof String) {
+                    batchSql = batchSql == null || batchSql.equals(args[0]) ? (String) args[0] : BATCH_STATEMENTS;
+                }
+            } else if ("clearBatch".equals(name)) {
+                batchSize = 0;
+                batchSql = null;
+            } else if (name.startsWith("execute")) {
+                return execute(method, args);
+            }
+            return SqlStatementLogConfig.invoke(target, method, args);
+        }
+
+        private Object execute(Method method, Object[] args) throws Throwable {
+            String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0]
+                    : preparedSql != null ? preparedSql : batchSql != null ? batchSql : BATCH_STATEMENTS;
+            long started = System.nanoTime();
+            try {
+                return SqlStatementLogConfig.invoke(target, method, args);
+            } finally {
+                statementLog.record(sql, Collections.unmodifiableList(new ArrayList<>(parameters)), batchSize,
+                        System.nanoTime() - started);
+                if ("executeBatch".equals(method.getName())) {
+                    batchSize = 0;
+                    batchSql = null;
+                }
+            }
+        }
+
+        private void bind(int index, Object value) {
+            while (parameters.size() < index) {
+                parameters.add(null);
+            }
+            String shown = value == null ? null : String.valueOf(value);
+            if (shown != null && shown.length() > MAX_PARAMETER_LENGTH) {
+                shown = shown.substring(0, MAX_PARAMETER_LENGTH) + "...";
+            }
+            parameters.set(index - 1, shown);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package tn.esprit.spring.configs;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Statement timing and slow-query logging, bound from station.sql.*.
+ */
+@Data
+@ConfigurationProperties(prefix = "station.sql")
+public class SqlStatementProperties {
+
+    /** Statements running at least this long are always logged. */
+    private long slowThresholdMs = 200;
+
+    /** Fraction of the faster statements logged anyway, between 0 and 1. */
+    private double sampleRate = 0.001;
+
+    /** Distinct SQL strings with their own stats, the others are counted together. */
+    private int maxStatements = 1_000;
+}
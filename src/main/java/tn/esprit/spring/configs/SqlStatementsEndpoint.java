@@ -0,0 +1,31 @@
+package tn.esprit.spring.configs;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * GET /actuator/sqlstats: count, total and max time per SQL statement, highest total first.
+ * DELETE starts a new measurement window.
+ */
+@Component
+@Endpoint(id = "sqlstats")
+@RequiredArgsConstructor
+public class SqlStatementsEndpoint {
+
+    private final SqlStatementLog statementLog;
+
+    @ReadOperation
+    public List<SqlStatementLog.StatementStats> statements() {
+        return statementLog.statements();
+    }
+
+    @DeleteOperation
+    public void reset() {
+        statementLog.reset();
+    }
+}
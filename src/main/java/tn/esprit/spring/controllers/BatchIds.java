@@ -0,0 +1,24 @@
+package tn.esprit.spring.controllers;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import tn.esprit.spring.services.BatchLookup;
+
+import java.util.List;
+
+/**
+ * The ids= list of the multi-get endpoints, e.g. GET /skier/get?ids=1,2,3.
+ */
+final class BatchIds {
+
+    private BatchIds() {
+    }
+
+    static List<Long> checked(List<Long> ids) {
+        if (ids.size() > BatchLookup.MAX_IDS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "At most " + BatchLookup.MAX_IDS + " ids per request, got " + ids.size());
+        }
+        return ids;
+    }
+}
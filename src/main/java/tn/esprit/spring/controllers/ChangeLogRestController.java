@@ -0,0 +1,48 @@
+package tn.esprit.spring.controllers;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import tn.esprit.spring.dto.ChangeRecord;
+import tn.esprit.spring.outbox.ChangeLog;
+
+import java.io.IOException;
+import java.util.List;
+
+@Tag(name = "\uD83D\uDCDC Change Log")
+@RestController
+@RequestMapping("/changes")
+@RequiredArgsConstructor
+// served by the relay instance only, where the log is written
+@ConditionalOnProperty(name = "station.outbox.relay-enabled", havingValue = "true", matchIfMissing = true)
+public class ChangeLogRestController {
+
+    private static final int MAX_RECORDS = 1000;
+
+    private final ChangeLog changeLog;
+
+    @Operation(description = "Retrieve the subscription and registration changes after the consumer's committed offset")
+    @GetMapping("/{consumer}")
+    public List<ChangeRecord> getChanges(@PathVariable("consumer") String consumer,
+                                         @RequestParam(value = "max", defaultValue = "500") int max) throws IOException {
+        try {
+            return changeLog.read(changeLog.committedOffset(consumer), Math.min(max, MAX_RECORDS));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    @Operation(description = "Commit the offset of the next change the consumer will read")
+    @PutMapping("/{consumer}/offset/{offset}")
+    public void commitOffset(@PathVariable("consumer") String consumer, @PathVariable("offset") long offset) throws IOException {
+        try {
+            changeLog.commitOffset(consumer, offset);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+}
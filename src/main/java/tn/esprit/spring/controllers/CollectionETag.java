@@ -0,0 +1,32 @@
+package tn.esprit.spring.controllers;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+import javax.servlet.http.HttpServletResponse;
+import java.util.Objects;
+
+/**
+ * Strong ETag of a collection endpoint, made of the collection version (see CollectionVersions)
+ * and the Accept header, since the same URL is served as JSON, CBOR or Smile.
+ */
+final class CollectionETag {
+
+    private CollectionETag() {
+    }
+
+    /**
+     * Sets the ETag and answers 304 when If-None-Match carries it; the caller then returns null without querying.
+     */
+    static boolean notModified(WebRequest request, String collectionVersion) {
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        if (request instanceof ServletWebRequest) {
+            HttpServletResponse response = ((ServletWebRequest) request).getResponse();
+            if (response != null) {
+                response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+            }
+        }
+        return request.checkNotModified("\"" + collectionVersion + "-" + Integer.toHexString(Objects.hashCode(accept)) + "\"");
+    }
+}
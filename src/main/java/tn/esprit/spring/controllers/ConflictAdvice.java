@@ -0,0 +1,21 @@
+package tn.esprit.spring.controllers;
+
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * An update that lost an optimistic locking race, or was sent with the version of an entity that has
+ * changed since it was read, is answered 409: the client reads the entity again and reapplies its change.
+ */
+@RestControllerAdvice
+public class ConflictAdvice {
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public void conflict(HttpServletResponse response) throws IOException {
+        response.sendError(HttpServletResponse.SC_CONFLICT, "Modified concurrently, read it again and retry");
+    }
+}
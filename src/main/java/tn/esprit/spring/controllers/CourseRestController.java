@@ -4,9 +4,16 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tn.esprit.spring.configs.ReadWriteRoutingDataSource;
+import tn.esprit.spring.dto.KeysetPage;
 import tn.esprit.spring.entities.Course;
 import tn.esprit.spring.entities.TypeCourse;
+import tn.esprit.spring.services.CollectionVersions;
 import tn.esprit.spring.services.ICourseServices;
+import tn.esprit.spring.services.ReadCoalescer;
 
 import java.util.List;
 
@@ -17,6 +24,9 @@ import java.util.List;
 public class CourseRestController {
     
     private final ICourseServices courseServices;
+    private final ReadCoalescer readCoalescer;
+    private final JsonArrayStreamer jsonArrayStreamer;
+    private final CollectionVersions collectionVersions;
 
     @Operation(description = "Add Course")
     @PostMapping("/add")
@@ -26,8 +36,12 @@ public class CourseRestController {
 
     @Operation(description = "Retrieve all Courses")
     @GetMapping("/all")
-    public List<Course> getAllCourses(){
-        return courseServices.retrieveAllCourses();
+    public List<Course> getAllCourses(WebRequest request){
+        if (CollectionETag.notModified(request, collectionVersions.version(CollectionVersions.COURSES))) {
+            return null;
+        }
+        // on the primary, as the version was read there
+        return ReadWriteRoutingDataSource.onPrimary(courseServices::retrieveAllCourses);
     }
 
     @Operation(description = "Update Course ")
@@ -39,7 +53,26 @@ public class CourseRestController {
     @Operation(description = "Retrieve Course by Id")
     @GetMapping("/get/{id-course}")
     public Course getById(@PathVariable("id-course") Long numCourse){
-        return courseServices.retrieveCourse(numCourse);
+        return readCoalescer.load("course", numCourse, () -> courseServices.retrieveCourse(numCourse));
+    }
+
+    @Operation(description = "Retrieve Courses by Ids")
+    @GetMapping("/get")
+    public List<Course> getByIds(@RequestParam("ids") List<Long> numCourses){
+        return courseServices.retrieveCoursesByIds(BatchIds.checked(numCourses));
+    }
+
+    @Operation(description = "Retrieve Courses page by page, ordered by id")
+    @GetMapping("/page")
+    public KeysetPage<Course> getCoursesPage(@RequestParam(value = "after", defaultValue = "0") Long after,
+                                    @RequestParam(value = "size", defaultValue = "100") int size){
+        return KeysetPage.of(courseServices.retrieveCoursesAfter(after, size), size, Course::getNumCourse);
+    }
+
+    @Operation(description = "Stream all Courses as one JSON array")
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_JSON_VALUE)
+    public StreamingResponseBody streamAllCourses(){
+        return jsonArrayStreamer.stream(courseServices::streamAllCourses);
     }
 
 }
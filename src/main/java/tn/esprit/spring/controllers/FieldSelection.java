@@ -0,0 +1,86 @@
+package tn.esprit.spring.controllers;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.PropertyWriter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * The fields= selector of the read endpoints, e.g. fields=numSkier,firstName,lastName,subscription.endDate.
+ * A nested path brings its parents along, a parent alone brings all of its fields.
+ * Applied to the entities carrying {@code @JsonFilter(FieldSelection.FILTER)}.
+ */
+public final class FieldSelection {
+
+    public static final String FILTER = "fieldSelection";
+
+    public static final String PARAMETER = "fields";
+
+    private static final FieldSelection ALL = new FieldSelection(Collections.emptySet());
+
+    private final Set<String> paths;
+
+    private FieldSelection(Set<String> paths) {
+        this.paths = paths;
+    }
+
+    public static FieldSelection parse(String fields) {
+        if (fields == null || fields.trim().isEmpty()) {
+            return ALL;
+        }
+        Set<String> paths = new LinkedHashSet<>();
+        for (String field : fields.split(",")) {
+            if (!field.trim().isEmpty()) {
+                paths.add(field.trim());
+            }
+        }
+        return paths.isEmpty() ? ALL : new FieldSelection(paths);
+    }
+
+    public boolean isAll() {
+        return paths.isEmpty();
+    }
+
+    public boolean includes(String path) {
+        if (paths.isEmpty() || paths.contains(path)) {
+            return true;
+        }
+        for (String selected : paths) {
+            if (selected.startsWith(path + ".") || path.startsWith(selected + ".")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A filter for one response: it keeps the path of the properties it is writing, from the outermost
+     * filtered entity, since the binary generators (CBOR, Smile) do not name the fields of their output context.
+     * Wrappers such as KeysetPage are not filtered, so they are not part of the path.
+     */
+    public SimpleBeanPropertyFilter filter() {
+        Deque<String> writing = new ArrayDeque<>();
+        return new SimpleBeanPropertyFilter() {
+            @Override
+            public void serializeAsField(Object pojo, JsonGenerator generator, SerializerProvider provider,
+                                         PropertyWriter writer) throws Exception {
+                writing.addLast(writer.getName());
+                try {
+                    if (includes(String.join(".", writing))) {
+                        writer.serializeAsField(pojo, generator, provider);
+                    } else if (!generator.canOmitFields()) {
+                        writer.serializeAsOmittedField(pojo, generator, provider);
+                    }
+                } finally {
+                    writing.removeLast();
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,35 @@
+package tn.esprit.spring.controllers;
+
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.AbstractMappingJacksonResponseBodyAdvice;
+
+/**
+ * Applies the fields= selector of a GET request to the response body, whatever Jackson format it is written in.
+ * Leaving a lazy association out of the selection also means it is never loaded.
+ */
+@RestControllerAdvice(assignableTypes = {SkierRestController.class, CourseRestController.class,
+        InstructorRestController.class, PisteRestController.class, SubscriptionRestController.class})
+public class FieldSelectionAdvice extends AbstractMappingJacksonResponseBodyAdvice {
+
+    @Override
+    protected void beforeBodyWriteInternal(MappingJacksonValue bodyContainer, MediaType contentType,
+                                           MethodParameter returnType, ServerHttpRequest request,
+                                           ServerHttpResponse response) {
+        if (request.getMethod() != HttpMethod.GET || !(request instanceof ServletServerHttpRequest)) {
+            return;
+        }
+        FieldSelection selection = FieldSelection.parse(
+                ((ServletServerHttpRequest) request).getServletRequest().getParameter(FieldSelection.PARAMETER));
+        if (!selection.isAll()) {
+            bodyContainer.setFilters(new SimpleFilterProvider().addFilter(FieldSelection.FILTER, selection.filter()));
+        }
+    }
+}
@@ -4,6 +4,9 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tn.esprit.spring.dto.KeysetPage;
 import tn.esprit.spring.entities.Instructor;
 import tn.esprit.spring.services.IInstructorServices;
 
@@ -16,6 +19,7 @@ import java.util.List;
 public class InstructorRestController {
 
     private final IInstructorServices instructorServices;
+    private final JsonArrayStreamer jsonArrayStreamer;
 
     @Operation(description = "Add Instructor")
     @PostMapping("/add")
@@ -45,4 +49,23 @@ public class InstructorRestController {
         return instructorServices.retrieveInstructor(numInstructor);
     }
 
+    @Operation(description = "Retrieve Instructors by Ids")
+    @GetMapping("/get")
+    public List<Instructor> getByIds(@RequestParam("ids") List<Long> numInstructors){
+        return instructorServices.retrieveInstructorsByIds(BatchIds.checked(numInstructors));
+    }
+
+    @Operation(description = "Retrieve Instructors page by page, ordered by id")
+    @GetMapping("/page")
+    public KeysetPage<Instructor> getInstructorsPage(@RequestParam(value = "after", defaultValue = "0") Long after,
+                                    @RequestParam(value = "size", defaultValue = "100") int size){
+        return KeysetPage.of(instructorServices.retrieveInstructorsAfter(after, size), size, Instructor::getNumInstructor);
+    }
+
+    @Operation(description = "Stream all Instructors as one JSON array")
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_JSON_VALUE)
+    public StreamingResponseBody streamAllInstructors(){
+        return jsonArrayStreamer.stream(instructorServices::streamAllInstructors);
+    }
+
 }
@@ -4,8 +4,15 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tn.esprit.spring.configs.ReadWriteRoutingDataSource;
+import tn.esprit.spring.dto.KeysetPage;
 import tn.esprit.spring.entities.Piste;
+import tn.esprit.spring.services.CollectionVersions;
 import tn.esprit.spring.services.IPisteServices;
+import tn.esprit.spring.services.ReadCoalescer;
 
 import java.util.List;
 
@@ -16,6 +23,9 @@ import java.util.List;
 public class PisteRestController {
 
     private final IPisteServices pisteServices;
+    private final ReadCoalescer readCoalescer;
+    private final JsonArrayStreamer jsonArrayStreamer;
+    private final CollectionVersions collectionVersions;
 
     @Operation(description = "Add Piste")
     @PostMapping("/add")
@@ -24,14 +34,24 @@ public class PisteRestController {
     }
     @Operation(description = "Retrieve all Pistes")
     @GetMapping("/all")
-    public List<Piste> getAllPistes(){
-        return pisteServices.retrieveAllPistes();
+    public List<Piste> getAllPistes(WebRequest request){
+        if (CollectionETag.notModified(request, collectionVersions.version(CollectionVersions.PISTES))) {
+            return null;
+        }
+        // on the primary, as the version was read there
+        return ReadWriteRoutingDataSource.onPrimary(pisteServices::retrieveAllPistes);
     }
 
     @Operation(description = "Retrieve Piste by Id")
     @GetMapping("/get/{id-piste}")
     public Piste getById(@PathVariable("id-piste") Long numPiste){
-        return pisteServices.retrievePiste(numPiste);
+        return readCoalescer.load("piste", numPiste, () -> pisteServices.retrievePiste(numPiste));
+    }
+
+    @Operation(description = "Retrieve Pistes by Ids")
+    @GetMapping("/get")
+    public List<Piste> getByIds(@RequestParam("ids") List<Long> numPistes){
+        return pisteServices.retrievePistesByIds(BatchIds.checked(numPistes));
     }
 
     @Operation(description = "Delete Piste by Id")
@@ -39,6 +59,18 @@ public class PisteRestController {
     public void deleteById(@PathVariable("id-piste") Long numPiste){
         pisteServices.removePiste(numPiste);
     }
-    
+
+    @Operation(description = "Retrieve Pistes page by page, ordered by id")
+    @GetMapping("/page")
+    public KeysetPage<Piste> getPistesPage(@RequestParam(value = "after", defaultValue = "0") Long after,
+                                    @RequestParam(value = "size", defaultValue = "100") int size){
+        return KeysetPage.of(pisteServices.retrievePistesAfter(after, size), size, Piste::getNumPiste);
+    }
+
+    @Operation(description = "Stream all Pistes as one JSON array")
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_JSON_VALUE)
+    public StreamingResponseBody streamAllPistes(){
+        return jsonArrayStreamer.stream(pisteServices::streamAllPistes);
+    }
 
 }
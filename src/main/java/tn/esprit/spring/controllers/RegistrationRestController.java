@@ -4,13 +4,17 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.*;
+import tn.esprit.spring.dto.BulkRegistrationItem;
+import tn.esprit.spring.dto.BulkRegistrationResult;
 import tn.esprit.spring.entities.Instructor;
 import tn.esprit.spring.entities.Registration;
 import tn.esprit.spring.entities.Support;
 import tn.esprit.spring.entities.TypeSubscription;
 import tn.esprit.spring.services.IRegistrationServices;
+import tn.esprit.spring.services.IWaitlistServices;
 
 import java.util.List;
+import java.util.Map;
 
 @Tag(name = "\uD83D\uDDD3️Registration Management")
 @RestController
@@ -18,6 +22,7 @@ import java.util.List;
 @RequiredArgsConstructor
 public class RegistrationRestController {
     private final IRegistrationServices registrationServices;
+    private final IWaitlistServices waitlistServices;
 
     @Operation(description = "Add Registration and Assign to Skier")
     @PutMapping("/addAndAssignToSkier/{numSkieur}")
@@ -43,10 +48,37 @@ public class RegistrationRestController {
         return  registrationServices.addRegistrationAndAssignToSkierAndCourse(registration,numSkieur,numCourse);
     }
 
+    @Operation(description = "Add a group of Registrations, each assigned to its Skier and Course")
+    @PutMapping("/addAndAssignToSkierAndCourse/bulk")
+    public List<BulkRegistrationResult> addAndAssignToSkierAndCourseInBulk(@RequestBody List<BulkRegistrationItem> items)
+    {
+        return  registrationServices.addRegistrationsInBulk(items);
+    }
+
+    @Operation(description = "Delete Registration by Id, the freed seat goes to the waiting list")
+    @DeleteMapping("/delete/{numRegistration}")
+    public void deleteById(@PathVariable("numRegistration") Long numRegistration){
+        registrationServices.removeRegistration(numRegistration);
+    }
+
+    @Operation(description = "Position of a Skier on the waiting list of a full Course (empty when not waiting)")
+    @GetMapping("/waitlist/{numSkieur}/{numCourse}/{numWeek}")
+    public Long waitlistPosition(@PathVariable("numSkieur") Long numSkieur,
+                                 @PathVariable("numCourse") Long numCourse,
+                                 @PathVariable("numWeek") int numWeek) {
+        return waitlistServices.retrieveWaitlistPosition(numSkieur, numCourse, numWeek);
+    }
+
     @Operation(description = "Numbers of the weeks when an instructor has given lessons in a given support")
     @GetMapping("/numWeeks/{numInstructor}/{support}")
     public List<Integer> numWeeksCourseOfInstructorBySupport(@PathVariable("numInstructor")Long numInstructor,
                                                                   @PathVariable("support") Support support) {
         return registrationServices.numWeeksCourseOfInstructorBySupport(numInstructor,support);
     }
+
+    @Operation(description = "Numbers of the weeks when each instructor has given lessons in a given support")
+    @GetMapping("/numWeeks/all/{support}")
+    public Map<Long, List<Integer>> numWeeksCourseOfAllInstructorsBySupport(@PathVariable("support") Support support) {
+        return registrationServices.numWeeksCourseOfAllInstructorsBySupport(support);
+    }
 }
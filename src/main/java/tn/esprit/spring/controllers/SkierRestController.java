@@ -4,9 +4,14 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tn.esprit.spring.dto.KeysetPage;
+import tn.esprit.spring.dto.SkierSummary;
 import tn.esprit.spring.entities.Skier;
 import tn.esprit.spring.entities.TypeSubscription;
 import tn.esprit.spring.services.ISkierServices;
+import tn.esprit.spring.services.ReadCoalescer;
 
 import java.util.List;
 
@@ -16,7 +21,11 @@ import java.util.List;
 @RequiredArgsConstructor
 public class SkierRestController {
 
+    private static final String REGISTRATIONS = "registrations";
+
     private final ISkierServices skierServices;
+    private final ReadCoalescer readCoalescer;
+    private final JsonArrayStreamer jsonArrayStreamer;
 
     @Operation(description = "Add Skier")
     @PostMapping("/add")
@@ -45,13 +54,21 @@ public class SkierRestController {
     }
     @Operation(description = "retrieve Skiers By Subscription Type")
     @GetMapping("/getSkiersBySubscription")
-    public List<Skier> retrieveSkiersBySubscriptionType(TypeSubscription typeSubscription) {
-        return skierServices.retrieveSkiersBySubscriptionType(typeSubscription);
+    public List<Skier> retrieveSkiersBySubscriptionType(TypeSubscription typeSubscription,
+                                                        @RequestParam(value = FieldSelection.PARAMETER, required = false) String fields) {
+        return skierServices.retrieveSkiersBySubscriptionType(typeSubscription,
+                FieldSelection.parse(fields).includes(REGISTRATIONS));
     }
     @Operation(description = "Retrieve Skier by Id")
     @GetMapping("/get/{id-skier}")
     public Skier getById(@PathVariable("id-skier") Long numSkier){
-        return skierServices.retrieveSkier(numSkier);
+        return readCoalescer.load("skier", numSkier, () -> skierServices.retrieveSkier(numSkier));
+    }
+
+    @Operation(description = "Retrieve Skiers by Ids")
+    @GetMapping("/get")
+    public List<Skier> getByIds(@RequestParam("ids") List<Long> numSkiers){
+        return skierServices.retrieveSkiersByIds(BatchIds.checked(numSkiers));
     }
 
     @Operation(description = "Delete Skier by Id")
@@ -62,8 +79,34 @@ public class SkierRestController {
 
     @Operation(description = "Retrieve all Skiers")
     @GetMapping("/all")
-    public List<Skier> getAllSkiers(){
-        return skierServices.retrieveAllSkiers();
+    public List<Skier> getAllSkiers(@RequestParam(value = FieldSelection.PARAMETER, required = false) String fields){
+        // registrations are fetched with the skiers only when they are part of the response
+        return skierServices.retrieveAllSkiers(FieldSelection.parse(fields).includes(REGISTRATIONS));
+    }
+
+    @Operation(description = "Retrieve all Skiers without their registrations")
+    @GetMapping("/summaries")
+    public List<SkierSummary> getAllSkierSummaries(){
+        return skierServices.retrieveAllSkierSummaries();
+    }
+
+    @Operation(description = "Retrieve Skiers By Subscription Type without their registrations")
+    @GetMapping("/summariesBySubscription")
+    public List<SkierSummary> retrieveSkierSummariesBySubscriptionType(TypeSubscription typeSubscription) {
+        return skierServices.retrieveSkierSummariesBySubscriptionType(typeSubscription);
+    }
+
+    @Operation(description = "Retrieve Skiers page by page, ordered by id")
+    @GetMapping("/page")
+    public KeysetPage<Skier> getSkiersPage(@RequestParam(value = "after", defaultValue = "0") Long after,
+                                    @RequestParam(value = "size", defaultValue = "100") int size){
+        return KeysetPage.of(skierServices.retrieveSkiersAfter(after, size), size, Skier::getNumSkier);
+    }
+
+    @Operation(description = "Stream all Skiers as one JSON array")
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_JSON_VALUE)
+    public StreamingResponseBody streamAllSkiers(){
+        return jsonArrayStreamer.stream(skierServices::streamAllSkiers);
     }
 
 }
@@ -4,9 +4,13 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import tn.esprit.spring.configs.ReadWriteRoutingDataSource;
 import tn.esprit.spring.entities.Subscription;
 import tn.esprit.spring.entities.TypeSubscription;
+import tn.esprit.spring.services.CollectionVersions;
 import tn.esprit.spring.services.ISubscriptionServices;
+import tn.esprit.spring.services.ReadCoalescer;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -19,6 +23,8 @@ import java.util.Set;
 public class SubscriptionRestController {
 
     private final ISubscriptionServices subscriptionServices;
+    private final ReadCoalescer readCoalescer;
+    private final CollectionVersions collectionVersions;
 
     @Operation(description = "Add Subscription ")
     @PostMapping("/add")
@@ -28,13 +34,24 @@ public class SubscriptionRestController {
     @Operation(description = "Retrieve Subscription by Id")
     @GetMapping("/get/{id-subscription}")
     public Subscription getById(@PathVariable("id-subscription") Long numSubscription){
-        return subscriptionServices.retrieveSubscriptionById(numSubscription);
+        return readCoalescer.load("subscription", numSubscription, () -> subscriptionServices.retrieveSubscriptionById(numSubscription));
+    }
+
+    @Operation(description = "Retrieve Subscriptions by Ids")
+    @GetMapping("/get")
+    public List<Subscription> getByIds(@RequestParam("ids") List<Long> numSubscriptions){
+        return subscriptionServices.retrieveSubscriptionsByIds(BatchIds.checked(numSubscriptions));
     }
     
     @Operation(description = "Retrieve Subscriptions by Type")
     @GetMapping("/all/{typeSub}")
-    public Set<Subscription> getSubscriptionsByType(@PathVariable("typeSub")TypeSubscription typeSubscription){
-        return subscriptionServices.getSubscriptionByType(typeSubscription);
+    public Set<Subscription> getSubscriptionsByType(@PathVariable("typeSub")TypeSubscription typeSubscription, WebRequest request){
+        // one version for all types, the ETag is scoped to the URL anyway
+        if (CollectionETag.notModified(request, collectionVersions.version(CollectionVersions.SUBSCRIPTIONS))) {
+            return null;
+        }
+        // on the primary, as the version was read there
+        return ReadWriteRoutingDataSource.onPrimary(() -> subscriptionServices.getSubscriptionByType(typeSubscription));
     }
     @Operation(description = "Update Subscription ")
     @PutMapping("/update")
@@ -48,4 +65,16 @@ public class SubscriptionRestController {
         return subscriptionServices.retrieveSubscriptionsByDates(startDate, endDate);
     }
 
+    @Operation(description = "Retrieve the Monthly Recurring Revenue")
+    @GetMapping("/mrr")
+    public Float getMonthlyRecurringRevenue(){
+        return subscriptionServices.retrieveMonthlyRecurringRevenue();
+    }
+
+    @Operation(description = "Recompute the Monthly Recurring Revenue from the database")
+    @PostMapping("/mrr/reconcile")
+    public Float reconcileMonthlyRecurringRevenue(){
+        return subscriptionServices.reconcileMonthlyRecurringRevenue();
+    }
+
 }
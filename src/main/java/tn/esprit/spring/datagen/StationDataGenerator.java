@@ -0,0 +1,373 @@
+package tn.esprit.spring.datagen;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import tn.esprit.spring.entities.Color;
+import tn.esprit.spring.entities.Registration;
+import tn.esprit.spring.entities.Support;
+import tn.esprit.spring.entities.TypeCourse;
+import tn.esprit.spring.entities.TypeSubscription;
+import tn.esprit.spring.services.RegistrationCapacityLedger;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Appends a synthetic station to the database for load and scale testing:
+ * java -jar ski_station.jar --spring.profiles.active=datagen [--datagen.skiers=...]
+ * Rows go through multi-row INSERT statements with explicit ids, so relations are wired
+ * without reading anything back. The same seed and reference date always produce the same rows;
+ * ids start after the rows already in the tables, so they are the same only from the same starting point
+ * (1..N on an empty database).
+ * Registrations keep to the rules of RegistrationServicesImpl, as of the reference date: at most
+ * COURSE_CAPACITY skiers per collective course and week, children's courses for the under 16 only,
+ * adults' courses for the others, and no skier twice in the same course and week.
+ */
+@Slf4j
+@Component
+@Profile("datagen")
+@EnableConfigurationProperties(StationDataProperties.class)
+@RequiredArgsConstructor
+public class StationDataGenerator implements ApplicationRunner {
+
+    private static final String[] FIRST_NAMES = {"Ahmed", "Amira", "Youssef", "Salma", "Mehdi", "Ines", "Karim",
+            "Nour", "Omar", "Lina", "Sami", "Yasmine", "Anis", "Rania", "Hedi", "Meriem"};
+    private static final String[] LAST_NAMES = {"Ben Salah", "Trabelsi", "Gharbi", "Jaziri", "Mansour", "Haddad",
+            "Khelifi", "Bouazizi", "Chebbi", "Ayari", "Saidi", "Hamdi"};
+    private static final String[] CITIES = {"Tunis", "Sousse", "Sfax", "Bizerte", "Nabeul", "Ariana", "Monastir",
+            "Gabes", "Kairouan", "Hammamet"};
+
+    private final JdbcTemplate jdbcTemplate;
+    private final StationDataProperties properties;
+    private final ApplicationContext context;
+
+    private static final int RANDOM_COURSE_DRAWS = 50;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        generate();
+        if (properties.isExitWhenDone()) {
+            System.exit(SpringApplication.exit(context));
+        }
+    }
+
+    public void generate() {
+        Random random = new Random(properties.getSeed());
+        LocalDate today = properties.getReferenceDate();
+        long started = System.currentTimeMillis();
+
+        long firstPiste = nextId("piste", "num_piste");
+        insertPistes(random, firstPiste);
+        long firstCourse = nextId("course", "num_course");
+        TypeCourse[] courseTypes = insertCourses(random, firstCourse);
+        long firstInstructor = nextId("instructor", "num_instructor");
+        insertInstructors(random, today, firstInstructor, firstCourse);
+        long firstSubscription = nextId("subscription", "num_sub");
+        long firstSkier = nextId("skier", "num_skier");
+        BitSet children = insertSkiers(random, today, firstSkier, firstSubscription);
+        insertExcursions(random, firstSkier, firstPiste);
+        insertRegistrations(random, firstSkier, firstCourse, courseTypes, children);
+
+        log.info("Station generated in {} s", (System.currentTimeMillis() - started) / 1000);
+    }
+
+    private void insertPistes(Random random, long firstId) {
+        RowWriter rows = new RowWriter("piste", "num_piste, name_piste, color, length, slope", 5);
+        Color[] colors = Color.values();
+        for (int i = 0; i < properties.getPistes(); i++) {
+            Color color = colors[random.nextInt(colors.length)];
+            // harder pistes are steeper
+            rows.add(firstId + i, "Piste " + (firstId + i), color.name(), 300 + random.nextInt(4000),
+                    5 + color.ordinal() * 10 + random.nextInt(10));
+        }
+        rows.flush();
+    }
+
+    private TypeCourse[] insertCourses(Random random, long firstId) {
+        RowWriter rows = new RowWriter("course", "num_course, level, type_course, support, price, time_slot", 6);
+        TypeCourse[] types = TypeCourse.values();
+        TypeCourse[] courseTypes = new TypeCourse[properties.getCourses()];
+        for (int i = 0; i < properties.getCourses(); i++) {
+            TypeCourse type = types[random.nextInt(types.length)];
+            courseTypes[i] = type;
+            Support support = random.nextInt(100) < 70 ? Support.SKI : Support.SNOWBOARD;
+            float price = type == TypeCourse.INDIVIDUAL ? 150 + random.nextInt(150) : 50 + random.nextInt(80);
+            rows.add(firstId + i, 1 + random.nextInt(5), type.name(), support.name(), price, 1 + random.nextInt(6));
+        }
+        rows.flush();
+        return courseTypes;
+    }
+
+    private void insertInstructors(Random random, LocalDate today, long firstId, long firstCourse) {
+        RowWriter rows = new RowWriter("instructor", "num_instructor, first_name, last_name, date_of_hire", 4);
+        for (int i = 0; i < properties.getInstructors(); i++) {
+            rows.add(firstId + i, pick(random, FIRST_NAMES), pick(random, LAST_NAMES),
+                    Date.valueOf(today.minusDays(random.nextInt(20 * 365))));
+        }
+        rows.flush();
+
+        // each course is taught by exactly one instructor
+        RowWriter assignments = new RowWriter("instructor_courses", "instructor_num_instructor, courses_num_course", 2);
+        for (int i = 0; i < properties.getCourses(); i++) {
+            assignments.add(firstId + random.nextInt(properties.getInstructors()), firstCourse + i);
+        }
+        assignments.flush();
+    }
+
+    /**
+     * Returns the skiers under 16 on the reference date, by index.
+     */
+    private BitSet insertSkiers(Random random, LocalDate today, long firstSkier, long firstSubscription) {
+        RowWriter subscriptions = new RowWriter("subscription", "num_sub, start_date, end_date, price, type_sub", 5);
+        RowWriter skiers = new RowWriter("skier",
+                "num_skier, first_name, last_name, date_of_birth, city, subscription_num_sub", 6);
+        BitSet children = new BitSet(properties.getSkiers());
+        for (int i = 0; i < properties.getSkiers(); i++) {
+            TypeSubscription type = subscriptionType(random);
+            LocalDate start = subscriptionStart(random, today);
+            subscriptions.add(firstSubscription + i, Date.valueOf(start), Date.valueOf(endDate(type, start)),
+                    subscriptionPrice(random, type), type.ordinal());
+            LocalDate dateOfBirth = dateOfBirth(random, today);
+            children.set(i, Period.between(dateOfBirth, today).getYears() < 16);
+            skiers.add(firstSkier + i, pick(random, FIRST_NAMES), pick(random, LAST_NAMES),
+                    Date.valueOf(dateOfBirth), pick(random, CITIES), firstSubscription + i);
+        }
+        subscriptions.flush();
+        skiers.flush();
+        return children;
+    }
+
+    private void insertExcursions(Random random, long firstSkier, long firstPiste) {
+        RowWriter rows = new RowWriter("excursion", "num_skier, num_piste", 2);
+        int perSkier = Math.min(properties.getExcursionsPerSkier(), properties.getPistes());
+        Set<Integer> pistes = new HashSet<>();
+        for (int i = 0; i < properties.getSkiers(); i++) {
+            pistes.clear();
+            while (pistes.size() < perSkier) {
+                pistes.add(random.nextInt(properties.getPistes()));
+            }
+            for (Integer piste : pistes) {
+                rows.add(firstSkier + i, firstPiste + piste);
+            }
+        }
+        rows.flush();
+    }
+
+    private void insertRegistrations(Random random, long firstSkier, long firstCourse, TypeCourse[] courseTypes,
+                                     BitSet children) {
+        // above both the existing rows and any block of ids already handed out by the pooled generator
+        long firstId = Math.max(nextId("registration", "num_registration"), generatorNextVal() + 1);
+        RowWriter rows = new RowWriter("registration", "num_registration, num_week, skier_num_skier, course_num_course", 4);
+        int weeks = properties.getWeeks();
+        // skiers per (course, week), the courses are new so they start empty
+        byte[] taken = new byte[courseTypes.length * weeks];
+        Set<Integer> skierSlots = new HashSet<>();
+        long id = firstId;
+        long skipped = 0;
+        for (int i = 0; i < properties.getSkiers(); i++) {
+            skierSlots.clear();
+            boolean child = children.get(i);
+            for (int r = 0; r < properties.getRegistrationsPerSkier(); r++) {
+                int slot = drawSlot(random, courseTypes, child, taken, skierSlots);
+                if (slot < 0) {
+                    skipped++;
+                    continue;
+                }
+                taken[slot]++;
+                skierSlots.add(slot);
+                rows.add(id++, 1 + slot % weeks, firstSkier + i, firstCourse + slot / weeks);
+            }
+        }
+        rows.flush();
+        if (skipped > 0) {
+            log.warn("registration: {} left out, no course and week open to the skier", skipped);
+        }
+        // registration ids come from the pooled id_generator, move it past the generated ones
+        long floor = id + Registration.ID_ALLOCATION_SIZE;
+        if (jdbcTemplate.update("update id_generator set next_val = ? where sequence_name = 'registration' and next_val < ?",
+                floor, floor) == 0 && countGeneratorRows() == 0) {
+            jdbcTemplate.update("insert into id_generator (sequence_name, next_val) values ('registration', ?)", floor);
+        }
+    }
+
+    /**
+     * A (course, week) the skier may be registered in, as courseIndex * weeks + week - 1, or -1 if there is none.
+     * Squared draw: a minority of popular courses gets most of the registrations, and once they are full
+     * the skiers spill over to the others.
+     */
+    private int drawSlot(Random random, TypeCourse[] courseTypes, boolean child, byte[] taken, Set<Integer> skierSlots) {
+        int weeks = properties.getWeeks();
+        for (int attempt = 0; attempt < RANDOM_COURSE_DRAWS; attempt++) {
+            double draw = random.nextDouble();
+            int slot = (int) (draw * draw * courseTypes.length) * weeks + random.nextInt(weeks);
+            if (open(slot, courseTypes, child, taken, skierSlots)) {
+                return slot;
+            }
+        }
+        // nearly everything is full, or closed to this skier
+        int start = random.nextInt(taken.length);
+        for (int i = 0; i < taken.length; i++) {
+            int slot = (start + i) % taken.length;
+            if (open(slot, courseTypes, child, taken, skierSlots)) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private boolean open(int slot, TypeCourse[] courseTypes, boolean child, byte[] taken, Set<Integer> skierSlots) {
+        TypeCourse type = courseTypes[slot / properties.getWeeks()];
+        if (skierSlots.contains(slot)) {
+            return false;
+        }
+        if (type == TypeCourse.INDIVIDUAL) {
+            return true;
+        }
+        return (type == TypeCourse.COLLECTIVE_CHILDREN) == child
+                && taken[slot] < RegistrationCapacityLedger.COURSE_CAPACITY;
+    }
+
+    private long generatorNextVal() {
+        Long nextVal = jdbcTemplate.queryForObject(
+                "select coalesce(max(next_val), 0) from id_generator where sequence_name = 'registration'", Long.class);
+        return nextVal == null ? 0 : nextVal;
+    }
+
+    private int countGeneratorRows() {
+        Integer rows = jdbcTemplate.queryForObject(
+                "select count(*) from id_generator where sequence_name = 'registration'", Integer.class);
+        return rows == null ? 0 : rows;
+    }
+
+    private long nextId(String table, String idColumn) {
+        Long max = jdbcTemplate.queryForObject("select coalesce(max(" + idColumn + "), 0) from " + table, Long.class);
+        return (max == null ? 0 : max) + 1;
+    }
+
+    private static TypeSubscription subscriptionType(Random random) {
+        int draw = random.nextInt(100);
+        if (draw < 60) {
+            return TypeSubscription.MONTHLY;
+        }
+        return draw < 85 ? TypeSubscription.SEMESTRIEL : TypeSubscription.ANNUAL;
+    }
+
+    /**
+     * Three seasons back, most subscriptions taken in December and January.
+     */
+    private static LocalDate subscriptionStart(Random random, LocalDate today) {
+        LocalDate seasonStart = LocalDate.of(today.getYear() - random.nextInt(3), 12, 1);
+        if (seasonStart.isAfter(today)) {
+            seasonStart = seasonStart.minusYears(1);
+        }
+        int days = random.nextInt(100) < 70 ? random.nextInt(62) : random.nextInt(150);
+        return seasonStart.plusDays(days);
+    }
+
+    private static LocalDate endDate(TypeSubscription type, LocalDate start) {
+        switch (type) {
+            case ANNUAL:
+                return start.plusYears(1);
+            case SEMESTRIEL:
+                return start.plusMonths(6);
+            default:
+                return start.plusMonths(1);
+        }
+    }
+
+    private static float subscriptionPrice(Random random, TypeSubscription type) {
+        switch (type) {
+            case ANNUAL:
+                return 900 + random.nextInt(300);
+            case SEMESTRIEL:
+                return 500 + random.nextInt(150);
+            default:
+                return 100 + random.nextInt(40);
+        }
+    }
+
+    /**
+     * A third of the skiers are children, the others adults up to 70.
+     */
+    private static LocalDate dateOfBirth(Random random, LocalDate today) {
+        int age = random.nextInt(3) == 0 ? 5 + random.nextInt(11) : 16 + random.nextInt(55);
+        return today.minusYears(age).minusDays(random.nextInt(365));
+    }
+
+    private static String pick(Random random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    /**
+     * Buffers rows and writes them rowsPerStatement at a time as one INSERT ... VALUES (...), (...).
+     */
+    private final class RowWriter {
+        private final String table;
+        private final String columns;
+        private final int columnCount;
+        private final String fullStatement;
+        private final List<Object> values = new ArrayList<>();
+        private long written;
+
+        RowWriter(String table, String columns, int columnCount) {
+            this.table = table;
+            this.columns = columns;
+            this.columnCount = columnCount;
+            this.fullStatement = statement(properties.getRowsPerStatement());
+        }
+
+        void add(Object... row) {
+            for (Object value : row) {
+                values.add(value);
+            }
+            if (values.size() == properties.getRowsPerStatement() * columnCount) {
+                write(fullStatement);
+            }
+        }
+
+        void flush() {
+            if (!values.isEmpty()) {
+                write(statement(values.size() / columnCount));
+            }
+            log.info("{}: {} rows", table, written);
+        }
+
+        private void write(String sql) {
+            jdbcTemplate.update(sql, values.toArray());
+            written += values.size() / columnCount;
+            values.clear();
+            if (written % 100_000 == 0) {
+                log.info("{}: {} rows", table, written);
+            }
+        }
+
+        private String statement(int rows) {
+            StringBuilder row = new StringBuilder("(?");
+            for (int i = 1; i < columnCount; i++) {
+                row.append(", ?");
+            }
+            row.append(')');
+            StringBuilder sql = new StringBuilder("insert into ").append(table)
+                    .append(" (").append(columns).append(") values ").append(row);
+            for (int i = 1; i < rows; i++) {
+                sql.append(", ").append(row);
+            }
+            return sql.toString();
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package tn.esprit.spring.datagen;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.LocalDate;
+
+/**
+ * Volumes of a generated station, bound from datagen.* (see application-datagen.properties).
+ */
+@Data
+@ConfigurationProperties(prefix = "datagen")
+public class StationDataProperties {
+
+    /** Same seed, same data: every random draw of the generator comes from it. */
+    private long seed = 42;
+
+    /** The "today" of the station: subscriptions, birth and hire dates are drawn relative to it, never to the clock. */
+    private LocalDate referenceDate = LocalDate.of(2026, 1, 15);
+
+    private int skiers = 1_000_000;
+    private int courses = 50_000;
+    private int pistes = 500;
+    private int instructors = 2_000;
+    private int registrationsPerSkier = 10;
+    private int excursionsPerSkier = 3;
+    private int weeks = 20;
+
+    /** Rows per multi-row INSERT statement. */
+    private int rowsPerStatement = 1_000;
+
+    private boolean exitWhenDone = true;
+}
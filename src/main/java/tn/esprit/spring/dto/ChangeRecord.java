@@ -0,0 +1,31 @@
+package tn.esprit.spring.dto;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+import tn.esprit.spring.entities.ChangeType;
+
+import java.time.LocalDateTime;
+
+/**
+ * One line of the change log. numEvent is the outbox id, the same change can be appended twice
+ * when the relay stops between the append and the outbox delete, so consumers skip numEvents already seen.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@FieldDefaults(level=AccessLevel.PRIVATE)
+public class ChangeRecord {
+    long offset;
+    Long numEvent;
+    String aggregateType;
+    Long aggregateId;
+    ChangeType changeType;
+    LocalDateTime occurredAt;
+    JsonNode payload;
+}
@@ -0,0 +1,10 @@
+package tn.esprit.spring.dto;
+
+import tn.esprit.spring.entities.Support;
+
+public interface CourseSupport {
+
+    Long getNumCourse();
+
+    Support getSupport();
+}
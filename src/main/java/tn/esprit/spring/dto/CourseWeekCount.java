@@ -0,0 +1,10 @@
+package tn.esprit.spring.dto;
+
+public interface CourseWeekCount {
+
+    Long getNumCourse();
+
+    Integer getNumWeek();
+
+    Long getRegistrations();
+}
@@ -0,0 +1,16 @@
+package tn.esprit.spring.dto;
+
+import java.time.LocalDate;
+
+public interface ExpiredSubscription {
+
+    Long getNumSub();
+
+    LocalDate getEndDate();
+
+    Long getNumSkier();
+
+    String getFirstName();
+
+    String getLastName();
+}
@@ -0,0 +1,8 @@
+package tn.esprit.spring.dto;
+
+public interface InstructorCourse {
+
+    Long getNumInstructor();
+
+    Long getNumCourse();
+}
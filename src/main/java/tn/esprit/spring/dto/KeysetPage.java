@@ -0,0 +1,38 @@
+package tn.esprit.spring.dto;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a listing ordered by primary key. The next page is requested with after=nextAfter;
+ * nextAfter is null on the last page.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@FieldDefaults(level=AccessLevel.PRIVATE)
+public class KeysetPage<T> {
+
+    public static final int DEFAULT_SIZE = 100;
+    public static final int MAX_SIZE = 1000;
+
+    List<T> items;
+    Long nextAfter;
+
+    public static int clampSize(int size) {
+        return Math.max(1, Math.min(size, MAX_SIZE));
+    }
+
+    public static <T> KeysetPage<T> of(List<T> items, int requestedSize, Function<T, Long> idOf) {
+        Long nextAfter = items.size() < clampSize(requestedSize) ? null : idOf.apply(items.get(items.size() - 1));
+        return new KeysetPage<>(items, nextAfter);
+    }
+}
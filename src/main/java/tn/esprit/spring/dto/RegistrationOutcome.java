@@ -0,0 +1,5 @@
+package tn.esprit.spring.dto;
+
+public enum RegistrationOutcome {
+    REGISTERED, SKIER_NOT_FOUND, COURSE_NOT_FOUND, ALREADY_REGISTERED, DUPLICATE_IN_REQUEST, AGE_NOT_ALLOWED, COURSE_FULL, WAITLISTED
+}
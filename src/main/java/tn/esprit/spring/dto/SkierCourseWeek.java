@@ -0,0 +1,10 @@
+package tn.esprit.spring.dto;
+
+public interface SkierCourseWeek {
+
+    Long getNumSkier();
+
+    Long getNumCourse();
+
+    Integer getNumWeek();
+}
@@ -0,0 +1,24 @@
+package tn.esprit.spring.dto;
+
+import tn.esprit.spring.entities.TypeSubscription;
+
+import java.time.LocalDate;
+
+public interface SkierSummary {
+
+    Long getNumSkier();
+
+    String getFirstName();
+
+    String getLastName();
+
+    LocalDate getDateOfBirth();
+
+    String getCity();
+
+    Long getNumSub();
+
+    TypeSubscription getTypeSub();
+
+    LocalDate getEndDate();
+}
@@ -5,7 +5,13 @@ import java.util.Set;
 
 import javax.persistence.*;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
+
+import com.fasterxml.jackson.annotation.JsonFilter;
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -20,11 +26,22 @@ import lombok.ToString;
 @NoArgsConstructor
 @FieldDefaults(level=AccessLevel.PRIVATE)
 @Entity
+@JsonFilter("fieldSelection")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "course")
 public class Course implements Serializable {
 
 	@Id
 	@GeneratedValue(strategy=GenerationType.IDENTITY)
 	Long numCourse;
+	@Version
+	@ColumnDefault("0")
+	@Setter(AccessLevel.NONE)
+	long version;
+	// the version an update was read at, only checked when the client sends one (setClientVersion)
+	@Transient
+	@JsonIgnore
+	Long expectedVersion;
 	int level;
 	@Enumerated(EnumType.STRING)
 	TypeCourse typeCourse;
@@ -37,4 +54,11 @@ public class Course implements Serializable {
 	@OneToMany(mappedBy= "course")
 	Set<Registration> registrations;
 
+	/**
+	 * "version" of a request body: a precondition of the update, see CourseServicesImpl.updateCourse.
+	 */
+	@JsonProperty("version")
+	public void setClientVersion(Long version) {
+		this.expectedVersion = version;
+	}
 }
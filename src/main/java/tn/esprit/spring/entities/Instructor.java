@@ -4,12 +4,22 @@ import java.io.Serializable;
 import java.time.LocalDate;
 import java.util.Set;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.OneToMany;
+import javax.persistence.Transient;
+import javax.persistence.Version;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
+
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -22,13 +32,33 @@ import lombok.experimental.FieldDefaults;
 @NoArgsConstructor
 @FieldDefaults(level=AccessLevel.PRIVATE)
 @Entity
+@JsonFilter("fieldSelection")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "instructor")
 public class Instructor implements Serializable {
 	@Id
 	@GeneratedValue(strategy=GenerationType.IDENTITY)
 	Long numInstructor;
+	@Version
+	@ColumnDefault("0")
+	@Setter(AccessLevel.NONE)
+	long version;
+	// the version an update was read at, only checked when the client sends one (setClientVersion)
+	@Transient
+	@JsonIgnore
+	Long expectedVersion;
 	String firstName;
 	String lastName;
 	LocalDate dateOfHire;
+	@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "instructor.courses")
 	@OneToMany
 	Set<Course> courses;
+
+	/**
+	 * "version" of a request body: a precondition of the update, see InstructorServicesImpl.updateInstructor.
+	 */
+	@JsonProperty("version")
+	public void setClientVersion(Long version) {
+		this.expectedVersion = version;
+	}
 }
@@ -0,0 +1,45 @@
+package tn.esprit.spring.entities;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Lob;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import lombok.experimental.FieldDefaults;
+
+/**
+ * A subscription or registration change, inserted in the transaction that made it
+ * and deleted once the relay has appended it to the change log.
+ */
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@FieldDefaults(level=AccessLevel.PRIVATE)
+@Entity
+public class OutboxEvent implements Serializable {
+
+	// relayed in numEvent order
+	@Id
+	@GeneratedValue(strategy=GenerationType.IDENTITY)
+	Long numEvent;
+	String aggregateType;
+	Long aggregateId;
+	@Enumerated(EnumType.STRING)
+	ChangeType changeType;
+	// JSON object of the entity's columns after the change, before it for a delete
+	@Lob
+	String payload;
+	LocalDateTime occurredAt;
+}
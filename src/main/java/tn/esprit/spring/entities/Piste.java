@@ -5,7 +5,13 @@ import java.util.Set;
 
 import javax.persistence.*;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
+
+import com.fasterxml.jackson.annotation.JsonFilter;
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -19,11 +25,22 @@ import lombok.experimental.FieldDefaults;
 @NoArgsConstructor
 @FieldDefaults(level=AccessLevel.PRIVATE)
 @Entity
+@JsonFilter("fieldSelection")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "piste")
 public class Piste implements Serializable {
 
 	@Id
 	@GeneratedValue(strategy=GenerationType.IDENTITY)
 	Long numPiste;
+	@Version
+	@ColumnDefault("0")
+	@Setter(AccessLevel.NONE)
+	long version;
+	// the version an update was read at, only checked when the client sends one (setClientVersion)
+	@Transient
+	@JsonIgnore
+	Long expectedVersion;
 	String namePiste;
 	@Enumerated(EnumType.STRING)
 	Color color;
@@ -32,5 +49,12 @@ public class Piste implements Serializable {
 
 	@ManyToMany(mappedBy= "pistes")
 	Set<Skier> skiers;
-	
+
+	/**
+	 * "version" of a request body: a precondition of the update, see PisteServicesImpl.addPiste.
+	 */
+	@JsonProperty("version")
+	public void setClientVersion(Long version) {
+		this.expectedVersion = version;
+	}
 }
@@ -3,11 +3,19 @@ package tn.esprit.spring.entities;
 import java.io.Serializable;
 
 import javax.persistence.Entity;
+import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+import javax.persistence.TableGenerator;
+import javax.persistence.Version;
 
+import org.hibernate.annotations.ColumnDefault;
+
+import com.fasterxml.jackson.annotation.JsonFilter;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
@@ -23,17 +31,34 @@ import lombok.experimental.FieldDefaults;
 @NoArgsConstructor
 @FieldDefaults(level=AccessLevel.PRIVATE)
 @Entity
+@JsonFilter("fieldSelection")
+// course capacity counts, then the duplicate check; both are answered from the index alone (V4 migration)
+// columnList takes logical names: the implicit join columns and the numWeek property
+@Table(indexes = {
+		@Index(name = "idx_registration_course_week", columnList = "course_num_course, numWeek"),
+		@Index(name = "idx_registration_week_skier_course", columnList = "numWeek, skier_num_skier, course_num_course")})
 public class Registration implements Serializable {
 
+	public static final int ID_ALLOCATION_SIZE = 50;
+
+	// IDENTITY would disable JDBC batching, ids are handed out in blocks instead
 	@Id
-	@GeneratedValue(strategy=GenerationType.IDENTITY)
+	@GeneratedValue(strategy=GenerationType.TABLE, generator="registration_id")
+	@TableGenerator(name="registration_id", table="id_generator",
+			pkColumnName="sequence_name", valueColumnName="next_val", pkColumnValue="registration",
+			allocationSize=ID_ALLOCATION_SIZE)
 	Long numRegistration;
+	@Version
+	@ColumnDefault("0")
+	long version;
 	int numWeek;
 
+	@ToString.Exclude
 	@JsonIgnore
-	@ManyToOne
+	@ManyToOne(fetch = FetchType.LAZY)
     Skier skier;
+	@ToString.Exclude
 	@JsonIgnore
-	@ManyToOne
+	@ManyToOne(fetch = FetchType.LAZY)
 	Course course;
 }
@@ -7,7 +7,11 @@ import java.util.Set;
 
 import javax.persistence.*;
 
+import org.hibernate.annotations.ColumnDefault;
+
+import com.fasterxml.jackson.annotation.JsonFilter;
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -23,11 +27,25 @@ import lombok.ToString;
 @NoArgsConstructor
 @FieldDefaults(level=AccessLevel.PRIVATE)
 @Entity
+@JsonFilter("fieldSelection")
+@NamedEntityGraph(name = Skier.WITH_REGISTRATIONS, attributeNodes = {
+		@NamedAttributeNode("subscription"),
+		@NamedAttributeNode("registrations")})
 public class Skier implements Serializable {
 
+	public static final String WITH_REGISTRATIONS = "Skier.withRegistrations";
+
 	@Id
 	@GeneratedValue(strategy=GenerationType.IDENTITY)
 	Long numSkier;
+	@Version
+	@ColumnDefault("0")
+	@Setter(AccessLevel.NONE)
+	long version;
+	// the version an update was read at, only checked when the client sends one (setClientVersion)
+	@Transient
+	@JsonIgnore
+	Long expectedVersion;
 	String firstName;
 	String lastName;
 	LocalDate dateOfBirth;
@@ -48,9 +66,11 @@ public class Skier implements Serializable {
 	@OneToMany(mappedBy = "skier")
 	Set<Registration> registrations;
 
-
-
-
-
-
+	/**
+	 * "version" of a request body: a precondition of the update, see SkierServicesImpl.addSkier.
+	 */
+	@JsonProperty("version")
+	public void setClientVersion(Long version) {
+		this.expectedVersion = version;
+	}
 }
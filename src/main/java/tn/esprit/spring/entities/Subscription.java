@@ -5,6 +5,11 @@ import java.time.LocalDate;
 
 import javax.persistence.*;
 
+import org.hibernate.annotations.ColumnDefault;
+
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -19,15 +24,35 @@ import lombok.experimental.FieldDefaults;
 @NoArgsConstructor
 @FieldDefaults(level=AccessLevel.PRIVATE)
 @Entity
+@JsonFilter("fieldSelection")
+// subscriptions of a type by start date, and the expiry scan by end date (V4 migration); columnList takes property names
+@Table(indexes = {
+		@Index(name = "idx_subscription_type_start", columnList = "typeSub, startDate"),
+		@Index(name = "idx_subscription_end_date", columnList = "endDate")})
 public class Subscription implements Serializable {
 
 	@Id
 	@GeneratedValue(strategy=GenerationType.IDENTITY)
 	Long numSub;
+	@Version
+	@ColumnDefault("0")
+	@Setter(AccessLevel.NONE)
+	long version;
+	// the version an update was read at, only checked when the client sends one (setClientVersion)
+	@Transient
+	@JsonIgnore
+	Long expectedVersion;
 	LocalDate startDate;
 	LocalDate endDate;
 	Float price;
 //	@Enumerated(EnumType.STRING)
 	TypeSubscription typeSub;
 
+	/**
+	 * "version" of a request body: a precondition of the update, see SubscriptionServicesImpl.updateSubscription.
+	 */
+	@JsonProperty("version")
+	public void setClientVersion(Long version) {
+		this.expectedVersion = version;
+	}
 }
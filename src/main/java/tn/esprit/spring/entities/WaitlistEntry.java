@@ -0,0 +1,50 @@
+package tn.esprit.spring.entities;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import lombok.experimental.FieldDefaults;
+@Getter
+@Setter
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+@FieldDefaults(level=AccessLevel.PRIVATE)
+@Entity
+// a skier waits at most once for a course/week (V7 migration); Hibernate resolves these logical column names,
+// the implicit join columns and the numWeek property, not the physical ones
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_waitlist_entry_skier_course_week",
+		columnNames = {"skier_num_skier", "course_num_course", "numWeek"}))
+public class WaitlistEntry implements Serializable {
+
+	// entries are served in numEntry order
+	@Id
+	@GeneratedValue(strategy=GenerationType.IDENTITY)
+	Long numEntry;
+	int numWeek;
+	LocalDateTime createdAt;
+
+	@ToString.Exclude
+	@JsonIgnore
+	@ManyToOne
+	Skier skier;
+	@ToString.Exclude
+	@JsonIgnore
+	@ManyToOne
+	Course course;
+}
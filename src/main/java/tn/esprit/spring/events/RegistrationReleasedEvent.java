@@ -0,0 +1,12 @@
+package tn.esprit.spring.events;
+
+import lombok.Value;
+
+/**
+ * A registration was removed, so a seat of (numCourse, numWeek) may be free again.
+ */
+@Value
+public class RegistrationReleasedEvent {
+    Long numCourse;
+    int numWeek;
+}
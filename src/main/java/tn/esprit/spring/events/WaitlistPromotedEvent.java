@@ -0,0 +1,14 @@
+package tn.esprit.spring.events;
+
+import lombok.Value;
+
+/**
+ * A waitlisted skier was moved into the course.
+ */
+@Value
+public class WaitlistPromotedEvent {
+    Long numRegistration;
+    Long numSkier;
+    Long numCourse;
+    int numWeek;
+}
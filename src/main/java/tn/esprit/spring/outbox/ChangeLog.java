@@ -0,0 +1,232 @@
+package tn.esprit.spring.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+import tn.esprit.spring.dto.ChangeRecord;
+
+import javax.annotation.PreDestroy;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Append-only log of the relayed outbox events, one JSON line per change, numbered by a gapless offset.
+ * It is split in segments named after the offset of their first line (00000000000000000000.log, ...);
+ * only the last one is written to, and a new one is started once it has reached station.outbox.segment-bytes.
+ * Segments are never deleted here.
+ * Consumers keep the offset they have read up to in offsets/{consumer}.offset, so they can read on
+ * from there instead of scanning the tables again.
+ * Only the instance running the relay has it: the files are local, and another instance would serve
+ * a log that never grows past what it found at startup.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "station.outbox.relay-enabled", havingValue = "true", matchIfMissing = true)
+@EnableConfigurationProperties(OutboxProperties.class)
+public class ChangeLog {
+
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String OFFSET_SUFFIX = ".offset";
+    private static final Pattern CONSUMER = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+
+    private final ObjectMapper objectMapper;
+    private final long segmentBytes;
+    private final Path segmentsDir;
+    private final Path offsetsDir;
+
+    // base offset -> segment file
+    private final TreeMap<Long, Path> segments = new TreeMap<>();
+    private FileChannel active;
+
+    // lines below it are complete and forced to disk
+    private volatile long nextOffset;
+
+    public ChangeLog(ObjectMapper objectMapper, OutboxProperties properties) throws IOException {
+        this.objectMapper = objectMapper;
+        this.segmentBytes = properties.getSegmentBytes();
+        this.segmentsDir = Paths.get(properties.getLogDir());
+        this.offsetsDir = segmentsDir.resolve("offsets");
+        Files.createDirectories(offsetsDir);
+        open();
+    }
+
+    public long nextOffset() {
+        return nextOffset;
+    }
+
+    /**
+     * Appends the records, numbering them from nextOffset(), and returns once they are on disk.
+     */
+    public synchronized void append(List<ChangeRecord> records) throws IOException {
+        if (records.isEmpty()) {
+            return;
+        }
+        if (active.size() >= segmentBytes) {
+            roll();
+        }
+        StringBuilder lines = new StringBuilder();
+        long offset = nextOffset;
+        for (ChangeRecord record : records) {
+            record.setOffset(offset++);
+            lines.append(objectMapper.writeValueAsString(record)).append('\n');
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+        long start = active.position();
+        try {
+            while (buffer.hasRemaining()) {
+                active.write(buffer);
+            }
+            active.force(false);
+        } catch (IOException e) {
+            // the next append must not land after a partial batch
+            active.truncate(start);
+            throw e;
+        }
+        nextOffset = offset;
+    }
+
+    /**
+     * Up to max records from the given offset on, fewer at the end of the log.
+     */
+    public List<ChangeRecord> read(long from, int max) throws IOException {
+        long end = nextOffset;
+        List<ChangeRecord> records = new ArrayList<>();
+        if (from < 0 || from >= end || max <= 0) {
+            return records;
+        }
+        List<Map.Entry<Long, Path>> tail;
+        synchronized (this) {
+            Long first = segments.floorKey(from);
+            tail = new ArrayList<>(segments.tailMap(first == null ? from : first, true).entrySet());
+        }
+        long offset = from;
+        for (Map.Entry<Long, Path> segment : tail) {
+            try (BufferedReader reader = Files.newBufferedReader(segment.getValue(), StandardCharsets.UTF_8)) {
+                long line = segment.getKey();
+                String json;
+                while (offset < end && records.size() < max && (json = reader.readLine()) != null) {
+                    if (line++ >= offset) {
+                        records.add(objectMapper.readValue(json, ChangeRecord.class));
+                        offset++;
+                    }
+                }
+            }
+            if (offset >= end || records.size() >= max) {
+                break;
+            }
+        }
+        return records;
+    }
+
+    public long committedOffset(String consumer) throws IOException {
+        Path file = offsetsDir.resolve(checkedConsumer(consumer) + OFFSET_SUFFIX);
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        return Long.parseLong(new String(Files.readAllBytes(file), StandardCharsets.UTF_8).trim());
+    }
+
+    /**
+     * Records that the consumer has processed everything before the given offset. Going back is allowed, to replay.
+     */
+    public void commitOffset(String consumer, long offset) throws IOException {
+        if (offset < 0 || offset > nextOffset) {
+            throw new IllegalArgumentException("Offset " + offset + " is outside of the log [0, " + nextOffset + "]");
+        }
+        String name = checkedConsumer(consumer);
+        Path temporary = offsetsDir.resolve(name + OFFSET_SUFFIX + ".tmp");
+        Files.write(temporary, Long.toString(offset).getBytes(StandardCharsets.UTF_8));
+        // readers see the old offset or the new one, never a partly written file
+        Files.move(temporary, offsetsDir.resolve(name + OFFSET_SUFFIX),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        active.close();
+    }
+
+    private void open() throws IOException {
+        try (Stream<Path> files = Files.list(segmentsDir)) {
+            files.filter(file -> file.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .forEach(file -> segments.put(baseOffset(file), file));
+        }
+        if (segments.isEmpty()) {
+            segments.put(0L, segmentFile(0));
+        }
+        Map.Entry<Long, Path> last = segments.lastEntry();
+        active = FileChannel.open(last.getValue(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        nextOffset = last.getKey() + recoverLines(active);
+        active.position(active.size());
+        log.info("Change log opened in {}, {} segments, next offset {}", segmentsDir, segments.size(), nextOffset);
+    }
+
+    /**
+     * Counts the complete lines of the segment and cuts off a line left half written by a crash.
+     */
+    private static long recoverLines(FileChannel channel) throws IOException {
+        long lines = 0;
+        long complete = 0;
+        long position = 0;
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        channel.position(0);
+        int read;
+        while ((read = channel.read(buffer)) > 0) {
+            buffer.flip();
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    lines++;
+                    complete = position + i + 1;
+                }
+            }
+            position += read;
+            buffer.clear();
+        }
+        if (complete < channel.size()) {
+            log.warn("Change log segment ends with an incomplete line, {} bytes dropped", channel.size() - complete);
+            channel.truncate(complete);
+        }
+        return lines;
+    }
+
+    private void roll() throws IOException {
+        active.close();
+        Path file = segmentFile(nextOffset);
+        active = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        segments.put(nextOffset, file);
+        log.info("Change log segment {} started", file.getFileName());
+    }
+
+    private Path segmentFile(long baseOffset) {
+        return segmentsDir.resolve(String.format("%020d%s", baseOffset, SEGMENT_SUFFIX));
+    }
+
+    private static long baseOffset(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static String checkedConsumer(String consumer) {
+        if (consumer == null || !CONSUMER.matcher(consumer).matches()) {
+            throw new IllegalArgumentException("Consumer names are 1 to 64 letters, digits, '_' or '-'");
+        }
+        return consumer;
+    }
+}
@@ -0,0 +1,188 @@
+package tn.esprit.spring.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Hibernate;
+import org.hibernate.HibernateException;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.proxy.HibernateProxy;
+import org.hibernate.type.Type;
+import org.springframework.stereotype.Component;
+import tn.esprit.spring.entities.ChangeType;
+import tn.esprit.spring.entities.OutboxEvent;
+import tn.esprit.spring.entities.Registration;
+import tn.esprit.spring.entities.Subscription;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import java.io.Serializable;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Writes an outbox_event row for every insert, update and delete of a subscription or registration,
+ * whichever service method or cascade made it. The rows of a transaction are collected while Hibernate
+ * flushes and inserted as one JDBC batch right before the commit, on the same connection, so they are
+ * committed or rolled back together with the change.
+ */
+@Component
+@RequiredArgsConstructor
+public class OutboxEventListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private static final Map<Class<?>, String> AGGREGATES = new HashMap<>();
+
+    static {
+        AGGREGATES.put(Subscription.class, "subscription");
+        AGGREGATES.put(Registration.class, "registration");
+    }
+
+    private static final String INSERT = "insert into outbox_event "
+            + "(aggregate_type, aggregate_id, change_type, payload, occurred_at) values (?, ?, ?, ?, ?)";
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final ObjectMapper objectMapper;
+
+    private final ConcurrentMap<SharedSessionContractImplementor, Batch> batches = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        record(event.getSession(), event.getPersister(), event.getEntity(), event.getId(), event.getState(), ChangeType.CREATED);
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        record(event.getSession(), event.getPersister(), event.getEntity(), event.getId(), event.getState(), ChangeType.UPDATED);
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        record(event.getSession(), event.getPersister(), event.getEntity(), event.getId(), event.getDeletedState(), ChangeType.DELETED);
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    private void record(EventSource session, EntityPersister persister, Object entity, Serializable id,
+                        Object[] state, ChangeType changeType) {
+        String aggregateType = AGGREGATES.get(Hibernate.getClass(entity));
+        if (aggregateType == null) {
+            return;
+        }
+        OutboxEvent event = new OutboxEvent();
+        event.setAggregateType(aggregateType);
+        event.setAggregateId((Long) id);
+        event.setChangeType(changeType);
+        event.setPayload(payload(session, persister, id, state));
+        event.setOccurredAt(LocalDateTime.now());
+        batches.computeIfAbsent(session, s -> newBatch(session)).events.add(event);
+    }
+
+    private Batch newBatch(EventSource session) {
+        Batch batch = new Batch();
+        session.getActionQueue().registerProcess((BeforeTransactionCompletionProcess) batch);
+        session.getActionQueue().registerProcess((AfterTransactionCompletionProcess) batch);
+        return batch;
+    }
+
+    /**
+     * The mapped columns as a JSON object, associations by their id (e.g. "skier": 42) and collections left out.
+     */
+    private String payload(EventSource session, EntityPersister persister, Serializable id, Object[] state) {
+        Map<String, Object> columns = new LinkedHashMap<>();
+        columns.put(persister.getIdentifierPropertyName(), id);
+        String[] names = persister.getPropertyNames();
+        Type[] types = persister.getPropertyTypes();
+        for (int i = 0; i < names.length; i++) {
+            if (types[i].isCollectionType()) {
+                continue;
+            }
+            Object value = state[i];
+            if (value != null && types[i].isEntityType()) {
+                value = identifier(session, value);
+            }
+            columns.put(names[i], value);
+        }
+        try {
+            return objectMapper.writeValueAsString(columns);
+        } catch (JsonProcessingException e) {
+            throw new HibernateException("Outbox payload of " + persister.getEntityName() + " " + id, e);
+        }
+    }
+
+    private static Object identifier(EventSource session, Object associated) {
+        if (associated instanceof HibernateProxy) {
+            // never initialized for this
+            return ((HibernateProxy) associated).getHibernateLazyInitializer().getIdentifier();
+        }
+        return session.getEntityPersister(null, associated).getIdentifier(associated, session);
+    }
+
+    private final class Batch implements BeforeTransactionCompletionProcess, AfterTransactionCompletionProcess {
+
+        final List<OutboxEvent> events = new ArrayList<>();
+
+        @Override
+        public void doBeforeTransactionCompletion(SessionImplementor session) {
+            // after the final flush, nothing is recorded for this transaction anymore
+            batches.remove(session);
+            session.doWork(connection -> {
+                try (PreparedStatement insert = connection.prepareStatement(INSERT)) {
+                    for (OutboxEvent event : events) {
+                        insert.setString(1, event.getAggregateType());
+                        if (event.getAggregateId() == null) {
+                            insert.setNull(2, Types.BIGINT);
+                        } else {
+                            insert.setLong(2, event.getAggregateId());
+                        }
+                        insert.setString(3, event.getChangeType().name());
+                        insert.setString(4, event.getPayload());
+                        insert.setTimestamp(5, Timestamp.valueOf(event.getOccurredAt()));
+                        insert.addBatch();
+                    }
+                    insert.executeBatch();
+                }
+            });
+        }
+
+        @Override
+        public void doAfterTransactionCompletion(boolean success, SharedSessionContractImplementor session) {
+            // rolled back: the events go with the transaction
+            batches.remove(session);
+        }
+    }
+}
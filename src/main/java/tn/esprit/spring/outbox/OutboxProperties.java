@@ -0,0 +1,21 @@
+package tn.esprit.spring.outbox;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Outbox relay and change log files, bound from station.outbox.*.
+ */
+@Data
+@ConfigurationProperties(prefix = "station.outbox")
+public class OutboxProperties {
+
+    /** Directory of the change log segments and of the consumer offsets. */
+    private String logDir = "changelog";
+
+    /** A new segment is started once the current one has reached this size. */
+    private long segmentBytes = 64L * 1024 * 1024;
+
+    /** Outbox events appended and deleted per relay transaction. */
+    private int batchSize = 500;
+}
@@ -0,0 +1,80 @@
+package tn.esprit.spring.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tn.esprit.spring.dto.ChangeRecord;
+import tn.esprit.spring.entities.OutboxEvent;
+import tn.esprit.spring.repositories.IOutboxEventRepository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Drains the outbox into the change log: the oldest events are appended, forced to disk, then deleted
+ * in the same transaction. Stopping between the append and the commit appends them again on the next run,
+ * consumers skip the numEvents they have already seen.
+ * The whole outbox is drained rather than the ids after the last one relayed, so an event whose transaction
+ * committed late is relayed late instead of being skipped; the changes of one row stay in order since their
+ * transactions are serialized by the row lock.
+ * The log is a local file: with several instances, the relay runs on one of them (station.outbox.relay-enabled).
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "station.outbox.relay-enabled", havingValue = "true", matchIfMissing = true)
+public class OutboxRelay {
+
+    private final IOutboxEventRepository outboxEventRepository;
+    private final ChangeLog changeLog;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    public OutboxRelay(IOutboxEventRepository outboxEventRepository, ChangeLog changeLog, ObjectMapper objectMapper,
+                       PlatformTransactionManager transactionManager, OutboxProperties properties) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.changeLog = changeLog;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = properties.getBatchSize();
+    }
+
+    @Scheduled(fixedDelayString = "${station.outbox.relay-ms:1000}")
+    public void relay() {
+        int relayed;
+        do {
+            Integer batch = transactionTemplate.execute(status -> relayBatch());
+            relayed = batch == null ? 0 : batch;
+        } while (relayed == batchSize);
+    }
+
+    private int relayBatch() {
+        List<OutboxEvent> events = outboxEventRepository.findByOrderByNumEventAsc(PageRequest.of(0, batchSize));
+        if (events.isEmpty()) {
+            return 0;
+        }
+        List<ChangeRecord> records = new ArrayList<>(events.size());
+        List<Long> numEvents = new ArrayList<>(events.size());
+        try {
+            for (OutboxEvent event : events) {
+                records.add(new ChangeRecord(0, event.getNumEvent(), event.getAggregateType(), event.getAggregateId(),
+                        event.getChangeType(), event.getOccurredAt(), objectMapper.readTree(event.getPayload())));
+                numEvents.add(event.getNumEvent());
+            }
+            changeLog.append(records);
+        } catch (IOException e) {
+            // rolls back, the events stay in the outbox for the next run
+            throw new UncheckedIOException(e);
+        }
+        outboxEventRepository.deleteAllByIdInBatch(numEvents);
+        log.debug("outbox relayed={} nextOffset={}", events.size(), changeLog.nextOffset());
+        return events.size();
+    }
+}
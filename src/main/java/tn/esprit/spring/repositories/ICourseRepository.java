@@ -1,16 +1,35 @@
 package tn.esprit.spring.repositories;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.data.jpa.repository.QueryHints;
+import tn.esprit.spring.dto.CourseSupport;
 import tn.esprit.spring.entities.Course;
 import tn.esprit.spring.entities.TypeCourse;
 
+import javax.persistence.QueryHint;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface ICourseRepository extends JpaRepository<Course, Long> {
 
+    // served from the query cache, invalidated by Hibernate on any write to the table
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE, value = "true"))
+    @Override
+    List<Course> findAll();
+
+    List<Course> findByNumCourseGreaterThanOrderByNumCourseAsc(Long numCourse, Pageable pageable);
+
+    @QueryHints({@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true")})
+    @Query("select c from Course c order by c.numCourse")
+    Stream<Course> streamAll();
+
+    @Query("select c.numCourse as numCourse, c.support as support from Course c")
+    List<CourseSupport> findAllSupports();
 
 
 }
@@ -1,11 +1,33 @@
 package tn.esprit.spring.repositories;
 
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import tn.esprit.spring.dto.InstructorCourse;
 import tn.esprit.spring.entities.Instructor;
 
+import javax.persistence.QueryHint;
+import java.util.List;
+import java.util.stream.Stream;
 
 
 public interface IInstructorRepository extends JpaRepository<Instructor, Long> {
 
+    // served from the query cache, invalidated by Hibernate on any write to the table
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE, value = "true"))
+    @Override
+    List<Instructor> findAll();
+
+    List<Instructor> findByNumInstructorGreaterThanOrderByNumInstructorAsc(Long numInstructor, Pageable pageable);
+
+    @QueryHints({@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true")})
+    @Query("select ins from Instructor ins order by ins.numInstructor")
+    Stream<Instructor> streamAll();
+
+    @Query("select ins.numInstructor as numInstructor, c.numCourse as numCourse from Instructor ins join ins.courses c")
+    List<InstructorCourse> findAllCourseAssignments();
+
 }
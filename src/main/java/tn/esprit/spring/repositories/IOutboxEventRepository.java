@@ -0,0 +1,12 @@
+package tn.esprit.spring.repositories;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import tn.esprit.spring.entities.OutboxEvent;
+
+import java.util.List;
+
+public interface IOutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    List<OutboxEvent> findByOrderByNumEventAsc(Pageable pageable);
+}
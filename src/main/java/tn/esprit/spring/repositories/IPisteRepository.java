@@ -1,9 +1,28 @@
 package tn.esprit.spring.repositories;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import tn.esprit.spring.entities.Piste;
 
+import javax.persistence.QueryHint;
+import java.util.List;
+import java.util.stream.Stream;
+
 public interface IPisteRepository extends JpaRepository<Piste, Long> {
 
+    // served from the query cache, invalidated by Hibernate on any write to the table
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_CACHEABLE, value = "true"))
+    @Override
+    List<Piste> findAll();
+
+    List<Piste> findByNumPisteGreaterThanOrderByNumPisteAsc(Long numPiste, Pageable pageable);
+
+    @QueryHints({@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true")})
+    @Query("select p from Piste p order by p.numPiste")
+    Stream<Piste> streamAll();
+
 }
@@ -4,8 +4,12 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 
 import org.springframework.data.repository.query.Param;
+import tn.esprit.spring.dto.CourseWeekCount;
+import tn.esprit.spring.dto.InstructorWeek;
+import tn.esprit.spring.dto.SkierCourseWeek;
 import tn.esprit.spring.entities.*;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface IRegistrationRepository extends CrudRepository<Registration, Long> {
@@ -17,10 +21,32 @@ public interface IRegistrationRepository extends CrudRepository<Registration, Lo
             "where ins.numInstructor = :idIns and reg.course.support = :support")
     List<Integer> numWeeksCourseOfInstructorBySupport(@Param("idIns") Long numInstructor, @Param("support") Support support);
 
+    @Query("select distinct ins.numInstructor as numInstructor, reg.numWeek as numWeek from Registration reg " +
+            "join Instructor ins " +
+            "on reg.course member ins.courses " +
+            "where reg.course.support = :support")
+    List<InstructorWeek> numWeeksCourseOfAllInstructorsBySupport(@Param("support") Support support);
+
     @Query("select count(distinct r) from Registration r " +
             "where r.numWeek = ?1 and r.skier.numSkier = ?2 and r.course.numCourse = ?3")
     Integer countDistinctByNumWeekAndSkier_NumSkierAndCourse_NumCourse(int numWeek, Long numSkier, Long numCourse);
 
+    @Query("select reg.course.numCourse as numCourse, reg.numWeek as numWeek, count(reg) as registrations " +
+            "from Registration reg where reg.course is not null " +
+            "group by reg.course.numCourse, reg.numWeek")
+    List<CourseWeekCount> countGroupByCourseAndWeek();
+
+    @Query("select reg.course.numCourse as numCourse, reg.numWeek as numWeek, count(reg) as registrations " +
+            "from Registration reg where reg.course.numCourse in :courses and reg.numWeek in :weeks " +
+            "group by reg.course.numCourse, reg.numWeek")
+    List<CourseWeekCount> countGroupByCourseAndWeek(@Param("courses") Collection<Long> numCourses,
+                                                    @Param("weeks") Collection<Integer> numWeeks);
+
+    @Query("select reg.skier.numSkier as numSkier, reg.course.numCourse as numCourse, reg.numWeek as numWeek " +
+            "from Registration reg where reg.course.numCourse in :courses and reg.numWeek in :weeks")
+    List<SkierCourseWeek> findSkierCourseWeeks(@Param("courses") Collection<Long> numCourses,
+                                               @Param("weeks") Collection<Integer> numWeeks);
+
 
 
 
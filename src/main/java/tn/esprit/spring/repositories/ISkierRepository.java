@@ -1,17 +1,57 @@
 package tn.esprit.spring.repositories;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import tn.esprit.spring.dto.SkierSummary;
 import tn.esprit.spring.entities.Skier;
 import tn.esprit.spring.entities.Subscription;
 import tn.esprit.spring.entities.TypeSubscription;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface ISkierRepository extends JpaRepository<Skier, Long> {
+   @EntityGraph(Skier.WITH_REGISTRATIONS)
+   @Query("select distinct s from Skier s")
+   List<Skier> findAllWithRegistrations();
+
+   @EntityGraph(Skier.WITH_REGISTRATIONS)
+   List<Skier> findDistinctBySubscription_TypeSub(TypeSubscription typeSubscription);
+
+   @EntityGraph(Skier.WITH_REGISTRATIONS)
+   List<Skier> findDistinctByNumSkierIn(Collection<Long> numSkiers);
+
+   @EntityGraph(attributePaths = "subscription")
+   @Query("select s from Skier s")
+   List<Skier> findAllWithSubscription();
+
+   @EntityGraph(attributePaths = "subscription")
    List<Skier> findBySubscription_TypeSub(TypeSubscription typeSubscription);
+
+   @Query("select s.numSkier as numSkier, s.firstName as firstName, s.lastName as lastName, s.dateOfBirth as dateOfBirth, " +
+           "s.city as city, sub.numSub as numSub, sub.typeSub as typeSub, sub.endDate as endDate " +
+           "from Skier s left join s.subscription sub order by s.numSkier")
+   List<SkierSummary> findAllSummaries();
+
+   @Query("select s.numSkier as numSkier, s.firstName as firstName, s.lastName as lastName, s.dateOfBirth as dateOfBirth, " +
+           "s.city as city, sub.numSub as numSub, sub.typeSub as typeSub, sub.endDate as endDate " +
+           "from Skier s join s.subscription sub where sub.typeSub = :typeSubscription order by s.numSkier")
+   List<SkierSummary> findSummariesBySubscriptionType(@Param("typeSubscription") TypeSubscription typeSubscription);
+
    Skier findBySubscription(Subscription subscription);
 
+   List<Skier> findByNumSkierGreaterThanOrderByNumSkierAsc(Long numSkier, Pageable pageable);
+
+   @QueryHints({@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "500"),
+           @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true")})
+   @Query("select s from Skier s order by s.numSkier")
+   Stream<Skier> streamAll();
 
 }
@@ -1,9 +1,12 @@
 package tn.esprit.spring.repositories;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 
 import org.springframework.data.repository.query.Param;
+import tn.esprit.spring.dto.ExpiredSubscription;
+import tn.esprit.spring.dto.SubscriptionRevenue;
 import tn.esprit.spring.entities.Subscription;
 import tn.esprit.spring.entities.TypeSubscription;
 
@@ -18,12 +21,23 @@ public interface ISubscriptionRepository extends CrudRepository<Subscription, Lo
 
     List<Subscription> getSubscriptionsByStartDateBetween(LocalDate date1, LocalDate date2);
 
-    @Query("select distinct s from Subscription s where s.endDate <= CURRENT_TIME order by s.endDate")
-    List<Subscription> findDistinctOrderByEndDateAsc();
+    @Query("select s.numSub as numSub, s.endDate as endDate, sk.numSkier as numSkier, " +
+            "sk.firstName as firstName, sk.lastName as lastName " +
+            "from Skier sk join sk.subscription s " +
+            "where s.endDate <= :today " +
+            "and (s.endDate > :afterEndDate or (s.endDate = :afterEndDate and s.numSub > :afterNumSub)) " +
+            "order by s.endDate, s.numSub")
+    List<ExpiredSubscription> findExpiredAfter(@Param("today") LocalDate today,
+                                               @Param("afterEndDate") LocalDate afterEndDate,
+                                               @Param("afterNumSub") Long afterNumSub,
+                                               Pageable pageable);
 
 
     @Query("select (sum(s.price))/(count(s)) from Subscription s where s.typeSub = ?1")
     Float recurringRevenueByTypeSubEquals(TypeSubscription typeSub);
 
+    @Query("select s.typeSub as typeSub, sum(s.price) as revenue, count(s) as subscriptions from Subscription s group by s.typeSub")
+    List<SubscriptionRevenue> sumRevenueGroupByTypeSub();
+
 
 }
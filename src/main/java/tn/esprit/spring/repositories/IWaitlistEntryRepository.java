@@ -0,0 +1,23 @@
+package tn.esprit.spring.repositories;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import tn.esprit.spring.dto.CourseWeekCount;
+import tn.esprit.spring.entities.WaitlistEntry;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface IWaitlistEntryRepository extends CrudRepository<WaitlistEntry, Long> {
+
+    List<WaitlistEntry> findByCourse_NumCourseAndNumWeekOrderByNumEntryAsc(Long numCourse, int numWeek, Pageable pageable);
+
+    Optional<WaitlistEntry> findBySkier_NumSkierAndCourse_NumCourseAndNumWeek(Long numSkier, Long numCourse, int numWeek);
+
+    long countByCourse_NumCourseAndNumWeekAndNumEntryLessThan(Long numCourse, int numWeek, Long numEntry);
+
+    @Query("select w.course.numCourse as numCourse, w.numWeek as numWeek, count(w) as registrations " +
+            "from WaitlistEntry w group by w.course.numCourse, w.numWeek")
+    List<CourseWeekCount> countGroupByCourseAndWeek();
+}
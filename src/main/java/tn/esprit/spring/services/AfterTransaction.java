@@ -0,0 +1,38 @@
+package tn.esprit.spring.services;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.Consumer;
+
+/**
+ * Defers in-memory bookkeeping until the surrounding transaction has finished,
+ * so that caches and counters never get ahead of what was actually committed.
+ * Outside of a transaction the callbacks run immediately.
+ */
+public final class AfterTransaction {
+
+    private AfterTransaction() {
+    }
+
+    public static void onCommit(Runnable action) {
+        onCompletion(committed -> {
+            if (committed) {
+                action.run();
+            }
+        });
+    }
+
+    public static void onCompletion(Consumer<Boolean> callback) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            callback.accept(true);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                callback.accept(status == STATUS_COMMITTED);
+            }
+        });
+    }
+}
@@ -0,0 +1,55 @@
+package tn.esprit.spring.services;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Multi-get by primary key: duplicates are dropped and the remaining ids loaded with one IN query
+ * per chunk, so neither the number of queries nor the size of an IN list grows with the request.
+ */
+public final class BatchLookup {
+
+    public static final int CHUNK_SIZE = 500;
+
+    /** Most ids a single multi-get may ask for. */
+    public static final int MAX_IDS = 1000;
+
+    private BatchLookup() {
+    }
+
+    /**
+     * The entities found, in the order their ids were first requested; unknown ids are left out.
+     */
+    public static <T> List<T> byIds(Collection<Long> ids, Function<List<Long>, ? extends Iterable<T>> loader,
+                                    Function<T, Long> idOf) {
+        Set<Long> distinct = new LinkedHashSet<>(ids);
+        distinct.remove(null);
+        Map<Long, T> found = new HashMap<>();
+        List<Long> chunk = new ArrayList<>(Math.min(distinct.size(), CHUNK_SIZE));
+        for (Long id : distinct) {
+            chunk.add(id);
+            if (chunk.size() == CHUNK_SIZE) {
+                loader.apply(chunk).forEach(entity -> found.put(idOf.apply(entity), entity));
+                chunk = new ArrayList<>(CHUNK_SIZE);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            loader.apply(chunk).forEach(entity -> found.put(idOf.apply(entity), entity));
+        }
+
+        List<T> entities = new ArrayList<>(found.size());
+        for (Long id : distinct) {
+            T entity = found.get(id);
+            if (entity != null) {
+                entities.add(entity);
+            }
+        }
+        return entities;
+    }
+}
@@ -0,0 +1,93 @@
+package tn.esprit.spring.services;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import tn.esprit.spring.configs.ReadWriteRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Versions of the collections that are served with an ETag, derived from the tables their responses are made of:
+ * row count, sum of the ids and sum of the @Version columns of each. An insert or a delete changes the first two,
+ * an update through JPA bumps a version, so every instance computes the same version for the same rows.
+ * Read on the primary, like the listings themselves (see ReadWriteRoutingDataSource.onPrimary), and before them,
+ * so a response is never tagged with a version newer than its content.
+ * Changes made by hand in the database without bumping the version column are not seen.
+ */
+@Component
+public class CollectionVersions {
+
+    public static final String PISTES = "pistes";
+    public static final String COURSES = "courses";
+    public static final String SUBSCRIPTIONS = "subscriptions";
+
+    private static final Map<String, String> QUERIES = new HashMap<>();
+
+    static {
+        // pistes are served with their skiers, and the skiers with their subscription and registrations
+        QUERIES.put(PISTES, union(
+                aggregates("piste", "num_piste"),
+                aggregates("skier", "num_skier"),
+                aggregates("subscription", "num_sub"),
+                aggregates("registration", "num_registration"),
+                "select count(*), coalesce(sum(num_skier), 0), coalesce(sum(num_piste), 0) from excursion"));
+        QUERIES.put(COURSES, union(aggregates("course", "num_course")));
+        QUERIES.put(SUBSCRIPTIONS, union(aggregates("subscription", "num_sub")));
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public CollectionVersions(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    /**
+     * Identifies the current content of the collection, e.g. "pistes-3f9a0c41d27e8b65".
+     */
+    public String version(String collection) {
+        String query = QUERIES.get(collection);
+        if (query == null) {
+            throw new IllegalArgumentException("No version for collection " + collection);
+        }
+        List<long[]> rows = ReadWriteRoutingDataSource.onPrimary(() -> jdbcTemplate.query(query,
+                (resultSet, rowNum) -> new long[]{resultSet.getLong(2), resultSet.getLong(3), resultSet.getLong(4)}));
+        StringBuilder state = new StringBuilder();
+        for (long[] row : rows) {
+            state.append(Arrays.toString(row));
+        }
+        return collection + "-" + digest(state.toString());
+    }
+
+    private static String aggregates(String table, String id) {
+        return "select count(*), coalesce(sum(" + id + "), 0), coalesce(sum(version), 0) from " + table;
+    }
+
+    private static String union(String... selects) {
+        // numbered, union all gives no order of its own
+        StringBuilder union = new StringBuilder();
+        for (int i = 0; i < selects.length; i++) {
+            union.append(i == 0 ? "" : " union all ").append(selects[i].replaceFirst("select ", "select " + i + " as part, "));
+        }
+        return union.append(" order by part").toString();
+    }
+
+    private static String digest(String state) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(state.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder();
+            for (int i = 0; i < 8; i++) {
+                hex.append(String.format("%02x", hash[i]));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -2,18 +2,26 @@ package tn.esprit.spring.services;
 
 import lombok.AllArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import tn.esprit.spring.dto.KeysetPage;
 import tn.esprit.spring.entities.Course;
 import tn.esprit.spring.entities.TypeCourse;
 import tn.esprit.spring.repositories.ICourseRepository;
 
+import javax.persistence.EntityManager;
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 @AllArgsConstructor
 @Service
 public class CourseServicesImpl implements  ICourseServices{
 
     private ICourseRepository courseRepository;
-
+    private EntityManager entityManager;
+    private InstructorWeeksIndex instructorWeeksIndex;
     @Override
+    @Transactional(readOnly = true)
     public List<Course> retrieveAllCourses() {
         return courseRepository.findAll();
     }
@@ -24,8 +32,25 @@ public class CourseServicesImpl implements  ICourseServices{
     }
 
     @Override
+    @Transactional
+    @RetryOnConflict
     public Course updateCourse(Course course) {
-        return courseRepository.save(course);
+        Course managed = course == null || course.getNumCourse() == null ? null
+                : courseRepository.findById(course.getNumCourse()).orElse(null);
+        if (managed == null) {
+            // unknown id: saved as a new course
+            managed = course;
+        } else {
+            StaleVersionException.check(course.getExpectedVersion(), managed.getVersion(), Course.class, managed.getNumCourse());
+            managed.setLevel(course.getLevel());
+            managed.setTypeCourse(course.getTypeCourse());
+            managed.setSupport(course.getSupport());
+            managed.setPrice(course.getPrice());
+            managed.setTimeSlot(course.getTimeSlot());
+        }
+        Course saved = courseRepository.save(managed);
+        instructorWeeksIndex.courseChanged(saved);
+        return saved;
     }
 
     @Override
@@ -33,5 +58,20 @@ public class CourseServicesImpl implements  ICourseServices{
         return courseRepository.findById(numCourse).orElse(null);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<Course> retrieveCoursesByIds(Collection<Long> numCourses) {
+        return BatchLookup.byIds(numCourses, courseRepository::findAllById, Course::getNumCourse);
+    }
 
+    @Override
+    public List<Course> retrieveCoursesAfter(Long after, int size) {
+        return courseRepository.findByNumCourseGreaterThanOrderByNumCourseAsc(after, PageRequest.of(0, KeysetPage.clampSize(size)));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamAllCourses(Consumer<Course> action) {
+        EntityStreams.forEach(courseRepository.streamAll(), entityManager, action);
+    }
 }
@@ -0,0 +1,9 @@
+package tn.esprit.spring.services;
+
+import lombok.Value;
+
+@Value
+public class CourseWeek {
+    Long numCourse;
+    int numWeek;
+}
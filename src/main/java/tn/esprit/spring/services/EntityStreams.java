@@ -0,0 +1,31 @@
+package tn.esprit.spring.services;
+
+import javax.persistence.EntityManager;
+import java.util.Iterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Walks a streamed query result and empties the persistence context as it goes,
+ * so that memory stays flat whatever the size of the table.
+ */
+public final class EntityStreams {
+
+    public static final int FETCH_SIZE = 500;
+
+    private EntityStreams() {
+    }
+
+    public static <T> void forEach(Stream<T> rows, EntityManager entityManager, Consumer<? super T> action) {
+        try (Stream<T> stream = rows) {
+            Iterator<T> iterator = stream.iterator();
+            int seen = 0;
+            while (iterator.hasNext()) {
+                action.accept(iterator.next());
+                if (++seen % FETCH_SIZE == 0) {
+                    entityManager.clear();
+                }
+            }
+        }
+    }
+}
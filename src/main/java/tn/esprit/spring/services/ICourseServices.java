@@ -3,7 +3,9 @@ package tn.esprit.spring.services;
 import tn.esprit.spring.entities.Course;
 import tn.esprit.spring.entities.TypeCourse;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface ICourseServices {
 
@@ -15,5 +17,10 @@ public interface ICourseServices {
 
     Course retrieveCourse(Long numCourse);
 
+    List<Course> retrieveCoursesByIds(Collection<Long> numCourses);
+
+    List<Course> retrieveCoursesAfter(Long after, int size);
+
+    void streamAllCourses(Consumer<Course> action);
 
 }
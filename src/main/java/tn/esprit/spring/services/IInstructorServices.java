@@ -4,7 +4,9 @@ import tn.esprit.spring.entities.Course;
 import tn.esprit.spring.entities.Instructor;
 import tn.esprit.spring.entities.Support;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface IInstructorServices {
 
@@ -16,6 +18,12 @@ public interface IInstructorServices {
 
     Instructor retrieveInstructor(Long numInstructor);
 
+    List<Instructor> retrieveInstructorsByIds(Collection<Long> numInstructors);
+
     Instructor addInstructorAndAssignToCourse(Instructor instructor, Long numCourse);
 
+    List<Instructor> retrieveInstructorsAfter(Long after, int size);
+
+    void streamAllInstructors(Consumer<Instructor> action);
+
 }
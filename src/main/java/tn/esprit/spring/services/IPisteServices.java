@@ -2,7 +2,9 @@ package tn.esprit.spring.services;
 
 import tn.esprit.spring.entities.Piste;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface IPisteServices {
 
@@ -13,4 +15,11 @@ public interface IPisteServices {
     void removePiste (Long numPiste);
 
     Piste retrievePiste (Long numPiste);
+
+    List<Piste> retrievePistesByIds(Collection<Long> numPistes);
+
+    List<Piste> retrievePistesAfter(Long after, int size);
+
+    void streamAllPistes(Consumer<Piste> action);
+
 }
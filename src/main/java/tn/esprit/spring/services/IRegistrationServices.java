@@ -1,8 +1,11 @@
 package tn.esprit.spring.services;
 
+import tn.esprit.spring.dto.BulkRegistrationItem;
+import tn.esprit.spring.dto.BulkRegistrationResult;
 import tn.esprit.spring.entities.*;
 
 import java.util.List;
+import java.util.Map;
 
 public interface IRegistrationServices {
 
@@ -10,5 +13,8 @@ public interface IRegistrationServices {
 	Registration assignRegistrationToCourse(Long numRegistration, Long numCourse);
 	Registration addRegistrationAndAssignToSkierAndCourse(Registration registration, Long numSkieur, Long numCours);
 	List<Integer> numWeeksCourseOfInstructorBySupport(Long numInstructor, Support support);
+	Map<Long, List<Integer>> numWeeksCourseOfAllInstructorsBySupport(Support support);
+	List<BulkRegistrationResult> addRegistrationsInBulk(List<BulkRegistrationItem> items);
+	void removeRegistration(Long numRegistration);
 }
 
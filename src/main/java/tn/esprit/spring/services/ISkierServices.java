@@ -1,14 +1,19 @@
 package tn.esprit.spring.services;
 
+import tn.esprit.spring.dto.SkierSummary;
 import tn.esprit.spring.entities.Skier;
 import tn.esprit.spring.entities.TypeSubscription;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface ISkierServices {
 
 	List<Skier> retrieveAllSkiers();
 
+	List<Skier> retrieveAllSkiers(boolean withRegistrations);
+
 	Skier  addSkier(Skier  skier);
 
 	Skier assignSkierToSubscription(Long numSkier, Long numSubscription);
@@ -19,9 +24,21 @@ public interface ISkierServices {
 
 	Skier retrieveSkier (Long numSkier);
 
+	List<Skier> retrieveSkiersByIds(Collection<Long> numSkiers);
+
 
 	Skier assignSkierToPiste(Long numSkieur, Long numPiste);
 
 	List<Skier> retrieveSkiersBySubscriptionType(TypeSubscription typeSubscription);
 
+	List<Skier> retrieveSkiersBySubscriptionType(TypeSubscription typeSubscription, boolean withRegistrations);
+
+	List<SkierSummary> retrieveAllSkierSummaries();
+
+	List<SkierSummary> retrieveSkierSummariesBySubscriptionType(TypeSubscription typeSubscription);
+
+	List<Skier> retrieveSkiersAfter(Long after, int size);
+
+	void streamAllSkiers(Consumer<Skier> action);
+
 }
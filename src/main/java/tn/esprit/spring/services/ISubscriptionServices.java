@@ -1,6 +1,7 @@
 package tn.esprit.spring.services;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 
@@ -15,9 +16,15 @@ public interface ISubscriptionServices {
 
 	Subscription retrieveSubscriptionById(Long numSubscription);
 
+	List<Subscription> retrieveSubscriptionsByIds(Collection<Long> numSubscriptions);
+
 	Set<Subscription> getSubscriptionByType(TypeSubscription type);
 
 	List<Subscription> retrieveSubscriptionsByDates(LocalDate startDate, LocalDate endDate);
 
 	void retrieveSubscriptions();
+
+	Float retrieveMonthlyRecurringRevenue();
+
+	Float reconcileMonthlyRecurringRevenue();
 }
@@ -0,0 +1,16 @@
+package tn.esprit.spring.services;
+
+import tn.esprit.spring.entities.Course;
+import tn.esprit.spring.entities.Registration;
+import tn.esprit.spring.entities.Skier;
+
+import java.util.List;
+
+public interface IWaitlistServices {
+
+	long addToWaitlist(Skier skier, Course course, int numWeek);
+
+	Long retrieveWaitlistPosition(Long numSkier, Long numCourse, int numWeek);
+
+	List<Registration> promoteWaitlisted(Long numCourse, int numWeek);
+}
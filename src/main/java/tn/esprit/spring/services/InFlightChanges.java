@@ -0,0 +1,51 @@
+package tn.esprit.spring.services;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keys of an in-memory aggregate that a rebuild from the database cannot take as it read them.
+ * A change is committed before its after-commit callback runs, so a change in flight while the rebuild
+ * queries run may or may not be in what they read. Those keys are kept from the current aggregate instead,
+ * which received every committed change exactly once.
+ * Not thread safe: used under the lock of the aggregate, which also guards the aggregate itself.
+ */
+final class InFlightChanges<K> {
+
+    private final Map<K, Integer> inFlight = new HashMap<>();
+
+    // non-null while a rebuild runs
+    private Set<K> touched;
+
+    /**
+     * A change of the key is being made, called in its transaction before the commit.
+     */
+    void begin(K key) {
+        inFlight.merge(key, 1, Integer::sum);
+        if (touched != null) {
+            touched.add(key);
+        }
+    }
+
+    /**
+     * The transaction of the change has committed or rolled back.
+     */
+    void end(K key) {
+        inFlight.computeIfPresent(key, (k, changes) -> changes > 1 ? changes - 1 : null);
+    }
+
+    void rebuildStarted() {
+        touched = new HashSet<>(inFlight.keySet());
+    }
+
+    /**
+     * The keys changed since the rebuild started, or in flight when it did.
+     */
+    Set<K> rebuildEnded() {
+        Set<K> ended = touched;
+        touched = null;
+        return ended;
+    }
+}
@@ -1,16 +1,22 @@
 package tn.esprit.spring.services;
 
+import java.util.Collection;
 import java.util.Optional;
 import lombok.AllArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import tn.esprit.spring.dto.KeysetPage;
 import tn.esprit.spring.entities.Course;
 import tn.esprit.spring.entities.Instructor;
 import tn.esprit.spring.repositories.ICourseRepository;
 import tn.esprit.spring.repositories.IInstructorRepository;
 
+import javax.persistence.EntityManager;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Consumer;
 
 @AllArgsConstructor
 @Service
@@ -18,20 +24,38 @@ public class InstructorServicesImpl implements IInstructorServices{
 
     private IInstructorRepository instructorRepository;
     private ICourseRepository courseRepository;
+    private InstructorWeeksIndex instructorWeeksIndex;
+    private EntityManager entityManager;
 
     @Override
     public Instructor addInstructor(Instructor instructor) {
-        return instructorRepository.save(instructor);
+        return indexCourses(instructorRepository.save(instructor));
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Instructor> retrieveAllInstructors() {
         return instructorRepository.findAll();
     }
 
     @Override
+    @Transactional
+    @RetryOnConflict
     public Instructor updateInstructor(Instructor instructor) {
-        return instructorRepository.save(instructor);
+        Instructor managed = instructor == null || instructor.getNumInstructor() == null ? null
+                : instructorRepository.findById(instructor.getNumInstructor()).orElse(null);
+        if (managed == null) {
+            // unknown id: saved as a new instructor
+            managed = instructor;
+        } else {
+            StaleVersionException.check(instructor.getExpectedVersion(), managed.getVersion(), Instructor.class,
+                    managed.getNumInstructor());
+            managed.setFirstName(instructor.getFirstName());
+            managed.setLastName(instructor.getLastName());
+            managed.setDateOfHire(instructor.getDateOfHire());
+            managed.setCourses(instructor.getCourses());
+        }
+        return indexCourses(instructorRepository.save(managed));
     }
 
     @Override
@@ -39,14 +63,36 @@ public class InstructorServicesImpl implements IInstructorServices{
         return instructorRepository.findById(numInstructor).orElse(null);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<Instructor> retrieveInstructorsByIds(Collection<Long> numInstructors) {
+        return BatchLookup.byIds(numInstructors, instructorRepository::findAllById, Instructor::getNumInstructor);
+    }
+
     @Override
     public Instructor addInstructorAndAssignToCourse(Instructor instructor, Long numCourse) {
         Optional<Course> course = courseRepository.findById(numCourse);
         Set<Course> courseSet = new HashSet<>();
 	course.ifPresent(courseSet::add);
         instructor.setCourses(courseSet);
-        return instructorRepository.save(instructor);
+        return indexCourses(instructorRepository.save(instructor));
     }
 
+    private Instructor indexCourses(Instructor saved) {
+        if (saved != null) {
+            instructorWeeksIndex.instructorCoursesChanged(saved.getNumInstructor(), saved.getCourses());
+        }
+        return saved;
+    }
 
+    @Override
+    public List<Instructor> retrieveInstructorsAfter(Long after, int size) {
+        return instructorRepository.findByNumInstructorGreaterThanOrderByNumInstructorAsc(after, PageRequest.of(0, KeysetPage.clampSize(size)));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamAllInstructors(Consumer<Instructor> action) {
+        EntityStreams.forEach(instructorRepository.streamAll(), entityManager, action);
+    }
 }
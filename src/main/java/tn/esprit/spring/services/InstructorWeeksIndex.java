@@ -0,0 +1,300 @@
+package tn.esprit.spring.services;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import tn.esprit.spring.dto.CourseSupport;
+import tn.esprit.spring.dto.CourseWeekCount;
+import tn.esprit.spring.dto.InstructorCourse;
+import tn.esprit.spring.entities.Course;
+import tn.esprit.spring.entities.Support;
+import tn.esprit.spring.repositories.ICourseRepository;
+import tn.esprit.spring.repositories.IInstructorRepository;
+import tn.esprit.spring.repositories.IRegistrationRepository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * Precomputed answer of numWeeksCourseOfInstructorBySupport: for every (instructor, support)
+ * the sorted weeks in which one of the instructor's courses has registrations.
+ * Weeks are reference counted per course so that registrations and course assignments can be
+ * applied incrementally once their transaction commits. Until the first build has completed,
+ * callers get an empty Optional and fall back to the database.
+ * A rebuild keeps the courses and instructors changed while it ran from the index it replaces
+ * (see InFlightChanges); the first build has nothing to keep them from, so it is run again instead.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class InstructorWeeksIndex {
+
+    private final IRegistrationRepository registrationRepository;
+    private final IInstructorRepository instructorRepository;
+    private final ICourseRepository courseRepository;
+
+    private static final int MAX_FIRST_BUILD_ATTEMPTS = 5;
+
+    private final Object rebuildLock = new Object();
+
+    private final InFlightChanges<Long> courseChanges = new InFlightChanges<>();
+    private final InFlightChanges<Long> instructorChanges = new InFlightChanges<>();
+
+    private State state;
+
+    public synchronized Optional<List<Integer>> weeksOf(Long numInstructor, Support support) {
+        if (state == null) {
+            return Optional.empty();
+        }
+        return Optional.of(state.weeksOf(numInstructor, support));
+    }
+
+    public synchronized Optional<Map<Long, List<Integer>>> weeksOfAllInstructors(Support support) {
+        if (state == null) {
+            return Optional.empty();
+        }
+        Map<Long, List<Integer>> weeks = new HashMap<>();
+        for (Long numInstructor : state.instructorCourses.keySet()) {
+            List<Integer> numWeeks = state.weeksOf(numInstructor, support);
+            // like the query, which only finds instructors with registrations
+            if (!numWeeks.isEmpty()) {
+                weeks.put(numInstructor, numWeeks);
+            }
+        }
+        return Optional.of(weeks);
+    }
+
+    public void registrationAdded(Course course, int numWeek) {
+        registrationChanged(course, numWeek, 1);
+    }
+
+    public void registrationRemoved(Course course, int numWeek) {
+        registrationChanged(course, numWeek, -1);
+    }
+
+    public void instructorCoursesChanged(Long numInstructor, Collection<Course> courses) {
+        if (numInstructor == null) {
+            return;
+        }
+        Map<Long, Support> assigned = new HashMap<>();
+        if (courses != null) {
+            courses.forEach(course -> assigned.put(course.getNumCourse(), course.getSupport()));
+        }
+        changing(instructorChanges, numInstructor, current -> current.assign(numInstructor, assigned));
+    }
+
+    public void courseChanged(Course course) {
+        if (course == null || course.getNumCourse() == null) {
+            return;
+        }
+        Long numCourse = course.getNumCourse();
+        Support support = course.getSupport();
+        changing(courseChanges, numCourse, current -> current.changeSupport(numCourse, support));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${registration.instructor-weeks.rebuild-ms:3600000}",
+            initialDelayString = "${registration.instructor-weeks.rebuild-ms:3600000}")
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            for (int attempt = 1; !tryRebuild(); attempt++) {
+                if (attempt == MAX_FIRST_BUILD_ATTEMPTS) {
+                    log.warn("Instructor weeks index not built, changes kept coming in; the database answers until the next rebuild");
+                    return;
+                }
+            }
+        }
+    }
+
+    private boolean tryRebuild() {
+        synchronized (this) {
+            courseChanges.rebuildStarted();
+            instructorChanges.rebuildStarted();
+        }
+        State rebuilt = new State();
+        for (CourseSupport course : courseRepository.findAllSupports()) {
+            rebuilt.courseSupport.put(course.getNumCourse(), course.getSupport());
+        }
+        for (CourseWeekCount count : registrationRepository.countGroupByCourseAndWeek()) {
+            rebuilt.courseWeeks.computeIfAbsent(count.getNumCourse(), c -> new TreeMap<>())
+                    .put(count.getNumWeek(), count.getRegistrations().intValue());
+        }
+        for (InstructorCourse assignment : instructorRepository.findAllCourseAssignments()) {
+            rebuilt.link(assignment.getNumInstructor(), assignment.getNumCourse());
+        }
+        synchronized (this) {
+            Set<Long> changedCourses = courseChanges.rebuildEnded();
+            Set<Long> changedInstructors = instructorChanges.rebuildEnded();
+            if (state == null && !(changedCourses.isEmpty() && changedInstructors.isEmpty())) {
+                return false;
+            }
+            // courses first, the instructors are assigned with the supports kept
+            for (Long numCourse : changedCourses) {
+                rebuilt.replaceCourse(numCourse, state.courseSupport.get(numCourse), state.courseWeeks.get(numCourse));
+            }
+            for (Long numInstructor : changedInstructors) {
+                rebuilt.assign(numInstructor, state.coursesOf(numInstructor));
+            }
+            state = rebuilt;
+        }
+        log.info("Instructor weeks index built for {} instructors", rebuilt.instructorCourses.size());
+        return true;
+    }
+
+    private void registrationChanged(Course course, int numWeek, int delta) {
+        if (course == null) {
+            return;
+        }
+        // read now, the entity must not be touched once the transaction is over
+        Long numCourse = course.getNumCourse();
+        Support support = course.getSupport();
+        changing(courseChanges, numCourse, current -> {
+            current.courseSupport.putIfAbsent(numCourse, support);
+            current.addCourseWeek(numCourse, numWeek, delta);
+        });
+    }
+
+    /**
+     * Applies the change to the index once its transaction commits, and lets a rebuild running meanwhile know.
+     */
+    private void changing(InFlightChanges<Long> changes, Long key, Consumer<State> change) {
+        synchronized (this) {
+            changes.begin(key);
+        }
+        AfterTransaction.onCompletion(committed -> {
+            synchronized (this) {
+                changes.end(key);
+                if (committed && state != null) {
+                    change.accept(state);
+                }
+            }
+        });
+    }
+
+    private static final class State {
+        final Map<Long, Support> courseSupport = new HashMap<>();
+        final Map<Long, TreeMap<Integer, Integer>> courseWeeks = new HashMap<>();
+        final Map<Long, Set<Long>> courseInstructors = new HashMap<>();
+        final Map<Long, Set<Long>> instructorCourses = new HashMap<>();
+        final Map<Long, Map<Support, TreeMap<Integer, Integer>>> instructorWeeks = new HashMap<>();
+
+        List<Integer> weeksOf(Long numInstructor, Support support) {
+            Map<Support, TreeMap<Integer, Integer>> bySupport = instructorWeeks.get(numInstructor);
+            if (bySupport == null || !bySupport.containsKey(support)) {
+                return new ArrayList<>();
+            }
+            return new ArrayList<>(bySupport.get(support).keySet());
+        }
+
+        Map<Long, Support> coursesOf(Long numInstructor) {
+            Map<Long, Support> courses = new HashMap<>();
+            for (Long numCourse : instructorCourses.getOrDefault(numInstructor, Collections.emptySet())) {
+                courses.put(numCourse, courseSupport.get(numCourse));
+            }
+            return courses;
+        }
+
+        void link(Long numInstructor, Long numCourse) {
+            if (!instructorCourses.computeIfAbsent(numInstructor, i -> new HashSet<>()).add(numCourse)) {
+                return;
+            }
+            courseInstructors.computeIfAbsent(numCourse, c -> new HashSet<>()).add(numInstructor);
+            addInstructorWeeks(numInstructor, courseSupport.get(numCourse), courseWeeks.get(numCourse), 1);
+        }
+
+        void unlink(Long numInstructor, Long numCourse) {
+            Set<Long> instructors = courseInstructors.get(numCourse);
+            if (instructors != null) {
+                instructors.remove(numInstructor);
+            }
+            addInstructorWeeks(numInstructor, courseSupport.get(numCourse), courseWeeks.get(numCourse), -1);
+        }
+
+        void assign(Long numInstructor, Map<Long, Support> courses) {
+            Set<Long> previous = instructorCourses.remove(numInstructor);
+            if (previous != null) {
+                for (Long numCourse : previous) {
+                    unlink(numInstructor, numCourse);
+                }
+            }
+            instructorCourses.put(numInstructor, new HashSet<>());
+            for (Map.Entry<Long, Support> course : courses.entrySet()) {
+                courseSupport.putIfAbsent(course.getKey(), course.getValue());
+                link(numInstructor, course.getKey());
+            }
+        }
+
+        void changeSupport(Long numCourse, Support support) {
+            Support previous = courseSupport.put(numCourse, support);
+            if (previous == support) {
+                return;
+            }
+            for (Long numInstructor : courseInstructors.getOrDefault(numCourse, Collections.emptySet())) {
+                addInstructorWeeks(numInstructor, previous, courseWeeks.get(numCourse), -1);
+                addInstructorWeeks(numInstructor, support, courseWeeks.get(numCourse), 1);
+            }
+        }
+
+        void replaceCourse(Long numCourse, Support support, TreeMap<Integer, Integer> weeks) {
+            Set<Long> instructors = courseInstructors.getOrDefault(numCourse, Collections.emptySet());
+            for (Long numInstructor : instructors) {
+                addInstructorWeeks(numInstructor, courseSupport.get(numCourse), courseWeeks.get(numCourse), -1);
+            }
+            if (support == null) {
+                courseSupport.remove(numCourse);
+            } else {
+                courseSupport.put(numCourse, support);
+            }
+            if (weeks == null) {
+                courseWeeks.remove(numCourse);
+            } else {
+                courseWeeks.put(numCourse, new TreeMap<>(weeks));
+            }
+            for (Long numInstructor : instructors) {
+                addInstructorWeeks(numInstructor, support, courseWeeks.get(numCourse), 1);
+            }
+        }
+
+        void addCourseWeek(Long numCourse, int numWeek, int delta) {
+            TreeMap<Integer, Integer> single = new TreeMap<>();
+            single.put(numWeek, 1);
+            addCounts(courseWeeks.computeIfAbsent(numCourse, c -> new TreeMap<>()), single, delta);
+            for (Long numInstructor : courseInstructors.getOrDefault(numCourse, Collections.emptySet())) {
+                addInstructorWeeks(numInstructor, courseSupport.get(numCourse), single, delta);
+            }
+        }
+
+        void addInstructorWeeks(Long numInstructor, Support support, Map<Integer, Integer> weeks, int sign) {
+            if (support == null || weeks == null || weeks.isEmpty()) {
+                return;
+            }
+            Map<Support, TreeMap<Integer, Integer>> bySupport =
+                    instructorWeeks.computeIfAbsent(numInstructor, i -> new EnumMap<>(Support.class));
+            addCounts(bySupport.computeIfAbsent(support, s -> new TreeMap<>()), weeks, sign);
+        }
+
+        static void addCounts(TreeMap<Integer, Integer> target, Map<Integer, Integer> weeks, int sign) {
+            for (Map.Entry<Integer, Integer> week : weeks.entrySet()) {
+                int count = target.getOrDefault(week.getKey(), 0) + sign * week.getValue();
+                if (count > 0) {
+                    target.put(week.getKey(), count);
+                } else {
+                    target.remove(week.getKey());
+                }
+            }
+        }
+    }
+}
@@ -1,25 +1,46 @@
 package tn.esprit.spring.services;
 
 import lombok.AllArgsConstructor;
+import org.hibernate.Hibernate;
 import org.springframework.stereotype.Service;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import tn.esprit.spring.dto.KeysetPage;
 import tn.esprit.spring.entities.Piste;
 import tn.esprit.spring.repositories.IPisteRepository;
 
+import javax.persistence.EntityManager;
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 @AllArgsConstructor
 @Service
 public class PisteServicesImpl implements  IPisteServices{
 
     private IPisteRepository pisteRepository;
-
+    private EntityManager entityManager;
     @Override
+    @Transactional(readOnly = true)
     public List<Piste> retrieveAllPistes() {
         return pisteRepository.findAll();
     }
 
     @Override
+    @Transactional
+    @RetryOnConflict
     public Piste addPiste(Piste piste) {
-        return pisteRepository.save(piste);
+        Piste managed = piste == null || piste.getNumPiste() == null ? null
+                : pisteRepository.findById(piste.getNumPiste()).orElse(null);
+        if (managed == null) {
+            return pisteRepository.save(piste);
+        }
+        // an existing id: the stored piste is updated, like CourseServicesImpl.updateCourse
+        StaleVersionException.check(piste.getExpectedVersion(), managed.getVersion(), Piste.class, managed.getNumPiste());
+        managed.setNamePiste(piste.getNamePiste());
+        managed.setColor(piste.getColor());
+        managed.setLength(piste.getLength());
+        managed.setSlope(piste.getSlope());
+        return pisteRepository.save(managed);
     }
 
     @Override
@@ -28,7 +49,31 @@ public class PisteServicesImpl implements  IPisteServices{
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Piste retrievePiste(Long numPiste) {
-        return pisteRepository.findById(numPiste).orElse(null);
+        Piste piste = pisteRepository.findById(numPiste).orElse(null);
+        if (piste != null && piste.getSkiers() != null) {
+            // handed to every coalesced request (ReadCoalescer): its skiers are serialized with their registrations
+            Hibernate.initialize(piste.getSkiers());
+            piste.getSkiers().forEach(skier -> Hibernate.initialize(skier.getRegistrations()));
+        }
+        return piste;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Piste> retrievePistesByIds(Collection<Long> numPistes) {
+        return BatchLookup.byIds(numPistes, pisteRepository::findAllById, Piste::getNumPiste);
+    }
+
+    @Override
+    public List<Piste> retrievePistesAfter(Long after, int size) {
+        return pisteRepository.findByNumPisteGreaterThanOrderByNumPisteAsc(after, PageRequest.of(0, KeysetPage.clampSize(size)));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamAllPistes(Consumer<Piste> action) {
+        EntityStreams.forEach(pisteRepository.streamAll(), entityManager, action);
     }
 }
@@ -0,0 +1,143 @@
+package tn.esprit.spring.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight by-id reads: concurrent lookups of the same (read, id) wait for the one
+ * load already in flight instead of each running their own query, and ids found missing are
+ * answered null without a query for station.reads.missing-ttl-ms. Only ids below the highest one
+ * this read has found are remembered missing: ids are generated increasing and never reused, so those
+ * were deleted (or are still being inserted), while a higher id may be the next one created.
+ * The loaded entity is handed to every waiting request, so loaders must return it with the
+ * associations it is serialized with already initialized.
+ * station.reads.coalesced counts the lookups per read and result (loaded, shared, missing):
+ * shared / (loaded + shared) is the coalescing ratio. Each counter is registered once, then reused.
+ */
+@Component
+public class ReadCoalescer {
+
+    static final String COALESCED_READS = "station.reads.coalesced";
+
+    private static final int MAX_MISSING = 10_000;
+
+    private final MeterRegistry meterRegistry;
+
+    private final long missingTtlNanos;
+
+    private final ConcurrentMap<CounterKey, Counter> counters = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<ReadKey, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<ReadKey, Long> missingUntil = new ConcurrentHashMap<>();
+
+    // read -> highest id found
+    private final ConcurrentMap<String, AtomicLong> highestFound = new ConcurrentHashMap<>();
+
+    public ReadCoalescer(MeterRegistry meterRegistry, @Value("${station.reads.missing-ttl-ms:2000}") long missingTtlMs) {
+        this.meterRegistry = meterRegistry;
+        this.missingTtlNanos = TimeUnit.MILLISECONDS.toNanos(missingTtlMs);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <V> V load(String read, Long id, Supplier<V> loader) {
+        ReadKey key = new ReadKey(read, id);
+        Long until = missingUntil.get(key);
+        if (until != null) {
+            if (System.nanoTime() - until < 0) {
+                count(read, "missing");
+                return null;
+            }
+            missingUntil.remove(key, until);
+        }
+
+        CompletableFuture<Object> ours = new CompletableFuture<>();
+        CompletableFuture<Object> running = inFlight.putIfAbsent(key, ours);
+        if (running != null) {
+            count(read, "shared");
+            return (V) join(running);
+        }
+        count(read, "loaded");
+        try {
+            V value = loader.get();
+            AtomicLong highest = highestFound.computeIfAbsent(read, r -> new AtomicLong(Long.MIN_VALUE));
+            if (value != null) {
+                highest.accumulateAndGet(id, Math::max);
+            } else if (missingTtlNanos > 0 && id < highest.get()) {
+                rememberMissing(key);
+            }
+            ours.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            ours.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, ours);
+        }
+    }
+
+    private void rememberMissing(ReadKey key) {
+        long now = System.nanoTime();
+        // lookups of random ids must not grow the map without bound
+        if (missingUntil.size() >= MAX_MISSING) {
+            missingUntil.values().removeIf(until -> now - until >= 0);
+        }
+        if (missingUntil.size() < MAX_MISSING) {
+            missingUntil.put(key, now + missingTtlNanos);
+        }
+    }
+
+    private static Object join(CompletableFuture<Object> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            // the leader's own exception, as if this request had run the load
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private void count(String read, String result) {
+        CounterKey key = new CounterKey(read, result);
+        Counter counter = counters.get(key);
+        if (counter == null) {
+            counter = counters.computeIfAbsent(key, k -> Counter.builder(COALESCED_READS)
+                    .description("By-id lookups, by whether they ran the query, shared one in flight or hit a known missing id")
+                    .tag("read", k.read)
+                    .tag("result", k.result)
+                    .register(meterRegistry));
+        }
+        counter.increment();
+    }
+
+    @EqualsAndHashCode
+    @AllArgsConstructor
+    private static final class ReadKey {
+        private final String read;
+        private final Long id;
+    }
+
+    @EqualsAndHashCode
+    @AllArgsConstructor
+    private static final class CounterKey {
+        private final String read;
+        private final String result;
+    }
+}
@@ -0,0 +1,190 @@
+package tn.esprit.spring.services;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import tn.esprit.spring.dto.SubscriptionRevenue;
+import tn.esprit.spring.entities.Subscription;
+import tn.esprit.spring.entities.TypeSubscription;
+import tn.esprit.spring.repositories.ISubscriptionRepository;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Running sum and count of subscription prices per subscription type, from which the monthly
+ * recurring revenue is computed without touching the database. Built once at startup and on
+ * explicit reconcile, kept current by the subscription writes once their transaction commits.
+ * A reconcile keeps the totals of the types changed while it ran (see InFlightChanges); the first
+ * build has nothing to keep them from, so it is run again instead.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RecurringRevenueAggregator implements MeterBinder {
+
+    private static final int MAX_FIRST_BUILD_ATTEMPTS = 5;
+
+    private final ISubscriptionRepository subscriptionRepository;
+
+    private final Object reconcileLock = new Object();
+
+    private final InFlightChanges<TypeSubscription> changes = new InFlightChanges<>();
+
+    private final Map<TypeSubscription, Totals> totals = new EnumMap<>(TypeSubscription.class);
+
+    private boolean built;
+
+    /**
+     * Same figure as the former per-type average queries: the average monthly subscription price,
+     * plus the average semestrial price over 6 months and the average annual price over 12 months.
+     */
+    public synchronized float monthlyRecurringRevenue() {
+        return average(TypeSubscription.MONTHLY)
+                + average(TypeSubscription.SEMESTRIEL) / 6
+                + average(TypeSubscription.ANNUAL) / 12;
+    }
+
+    public void subscriptionAdded(Subscription subscription) {
+        if (subscription == null) {
+            return;
+        }
+        TypeSubscription type = subscription.getTypeSub();
+        Float price = subscription.getPrice();
+        changing(() -> apply(type, price, 1), type);
+    }
+
+    public void subscriptionChanged(TypeSubscription previousType, Float previousPrice, Subscription subscription) {
+        TypeSubscription type = subscription.getTypeSub();
+        Float price = subscription.getPrice();
+        changing(() -> {
+            apply(previousType, previousPrice, -1);
+            apply(type, price, 1);
+        }, previousType, type);
+    }
+
+    public void subscriptionRemoved(Subscription subscription) {
+        if (subscription == null) {
+            return;
+        }
+        TypeSubscription type = subscription.getTypeSub();
+        Float price = subscription.getPrice();
+        changing(() -> apply(type, price, -1), type);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public float reconcile() {
+        synchronized (reconcileLock) {
+            for (int attempt = 1; ; attempt++) {
+                Float revenue = tryReconcile();
+                if (revenue != null) {
+                    return revenue;
+                }
+                if (attempt == MAX_FIRST_BUILD_ATTEMPTS) {
+                    log.warn("Recurring revenue not built, subscriptions kept changing; next try on the next reconcile");
+                    return monthlyRecurringRevenue();
+                }
+            }
+        }
+    }
+
+    private Float tryReconcile() {
+        synchronized (this) {
+            changes.rebuildStarted();
+        }
+        Map<TypeSubscription, Totals> rebuilt = new EnumMap<>(TypeSubscription.class);
+        for (SubscriptionRevenue revenue : subscriptionRepository.sumRevenueGroupByTypeSub()) {
+            if (revenue.getTypeSub() != null) {
+                rebuilt.put(revenue.getTypeSub(), new Totals(
+                        revenue.getRevenue() == null ? 0 : revenue.getRevenue(), revenue.getSubscriptions()));
+            }
+        }
+        synchronized (this) {
+            Set<TypeSubscription> changed = changes.rebuildEnded();
+            if (!built && !changed.isEmpty()) {
+                return null;
+            }
+            for (TypeSubscription type : changed) {
+                Totals kept = totals.get(type);
+                if (kept == null) {
+                    rebuilt.remove(type);
+                } else {
+                    rebuilt.put(type, kept);
+                }
+            }
+            totals.clear();
+            totals.putAll(rebuilt);
+            built = true;
+            log.info("Recurring revenue rebuilt, monthly revenue = {}", monthlyRecurringRevenue());
+            return monthlyRecurringRevenue();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("subscription.monthly.recurring.revenue", this, RecurringRevenueAggregator::monthlyRecurringRevenue)
+                .register(registry);
+        for (TypeSubscription type : TypeSubscription.values()) {
+            Gauge.builder("subscription.count", this, aggregator -> aggregator.count(type))
+                    .tag("type", type.name())
+                    .register(registry);
+        }
+    }
+
+    /**
+     * Applies the change once its transaction commits, and lets a reconcile running meanwhile know.
+     */
+    private void changing(Runnable change, TypeSubscription... types) {
+        synchronized (this) {
+            for (TypeSubscription type : types) {
+                changes.begin(type);
+            }
+        }
+        AfterTransaction.onCompletion(committed -> {
+            synchronized (this) {
+                for (TypeSubscription type : types) {
+                    changes.end(type);
+                }
+                if (committed) {
+                    change.run();
+                }
+            }
+        });
+    }
+
+    private synchronized void apply(TypeSubscription type, Float price, int sign) {
+        // until the first build, the rebuild will account for this change
+        if (!built || type == null) {
+            return;
+        }
+        Totals total = totals.computeIfAbsent(type, t -> new Totals(0, 0));
+        total.sum += sign * (price == null ? 0 : price);
+        total.count += sign;
+    }
+
+    private synchronized long count(TypeSubscription type) {
+        Totals total = totals.get(type);
+        return total == null ? 0 : total.count;
+    }
+
+    private float average(TypeSubscription type) {
+        Totals total = totals.get(type);
+        return total == null || total.count <= 0 ? 0 : (float) (total.sum / total.count);
+    }
+
+    private static final class Totals {
+        double sum;
+        long count;
+
+        Totals(double sum, long count) {
+            this.sum = sum;
+            this.count = count;
+        }
+    }
+}
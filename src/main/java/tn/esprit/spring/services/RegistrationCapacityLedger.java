@@ -0,0 +1,273 @@
+package tn.esprit.spring.services;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import tn.esprit.spring.dto.CourseWeekCount;
+import tn.esprit.spring.entities.Course;
+import tn.esprit.spring.events.RegistrationReleasedEvent;
+import tn.esprit.spring.repositories.IRegistrationRepository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory admission control for collective courses.
+ * Each (course, week) slot is seeded once from the database, then seats are taken
+ * with a compare-and-increment so the capacity holds under concurrent bookings.
+ * Seats taken by a transaction that rolls back are given back on completion,
+ * and a background job realigns the counters with the registration table.
+ * While skiers wait for a course/week, its free seats are kept for the waiting list:
+ * new bookings queue up behind them and only the promotion takes those seats.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RegistrationCapacityLedger {
+
+    public static final int COURSE_CAPACITY = 6;
+
+    private static final int SEED_STRIPES = 64;
+
+    private final IRegistrationRepository registrationRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final ConcurrentMap<CourseWeek, Slot> slots = new ConcurrentHashMap<>();
+
+    // committed waiting list entries per course/week
+    private final ConcurrentMap<CourseWeek, AtomicInteger> waiting = new ConcurrentHashMap<>();
+
+    private final Object[] seedLocks = newSeedLocks();
+
+    /**
+     * Takes a seat for a new booking. Fails when the course/week is full or when skiers are waiting for it;
+     * a free seat found behind a waiting list is announced so the promotion picks it up.
+     */
+    public boolean tryAcquire(Course course, int numWeek) {
+        AtomicInteger queue = waiting.get(new CourseWeek(course.getNumCourse(), numWeek));
+        if (queue != null && queue.get() > 0) {
+            if (slot(course, numWeek).taken.get() < COURSE_CAPACITY) {
+                eventPublisher.publishEvent(new RegistrationReleasedEvent(course.getNumCourse(), numWeek));
+            }
+            return false;
+        }
+        return acquire(slot(course, numWeek));
+    }
+
+    /**
+     * Takes a seat for the head of the waiting list, the seats kept for it included.
+     */
+    public boolean tryAcquireForWaitlist(Course course, int numWeek) {
+        return acquire(slot(course, numWeek));
+    }
+
+    /**
+     * Counts entries added to (positive delta) or served from (negative) a waiting list once their
+     * transaction commits.
+     */
+    public void waitlistChanged(Long numCourse, int numWeek, int delta) {
+        CourseWeek key = new CourseWeek(numCourse, numWeek);
+        AfterTransaction.onCommit(() -> waiting.computeIfAbsent(key, k -> new AtomicInteger())
+                .updateAndGet(entries -> Math.max(0, entries + delta)));
+    }
+
+    /**
+     * Stops keeping seats for a waiting list found empty, once the transaction that looked commits.
+     */
+    public void waitlistEmptied(Long numCourse, int numWeek) {
+        CourseWeek key = new CourseWeek(numCourse, numWeek);
+        AfterTransaction.onCommit(() -> waiting.remove(key));
+    }
+
+    /**
+     * Sets the waiting list sizes read from the database at startup.
+     */
+    public void waitlistLoaded(Map<CourseWeek, Integer> entries) {
+        entries.forEach((key, count) -> waiting.computeIfAbsent(key, k -> new AtomicInteger()).set(count));
+    }
+
+    /**
+     * Gives a seat back once the transaction deleting its registration commits.
+     */
+    public void release(Long numCourse, int numWeek) {
+        Slot slot = slots.get(new CourseWeek(numCourse, numWeek));
+        if (slot == null) {
+            return;
+        }
+        slot.changing();
+        slot.pendingReleases.incrementAndGet();
+        slot.changed();
+        AfterTransaction.onCompletion(committed -> {
+            slot.changing();
+            if (committed) {
+                slot.taken.updateAndGet(taken -> Math.max(0, taken - 1));
+            }
+            slot.pendingReleases.decrementAndGet();
+            slot.changed();
+        });
+    }
+
+    /**
+     * Seeds the given slots with a single grouped count instead of one count query per slot.
+     */
+    public void preload(Collection<CourseWeek> keys) {
+        List<CourseWeek> missing = new ArrayList<>();
+        Set<Long> numCourses = new HashSet<>();
+        Set<Integer> numWeeks = new HashSet<>();
+        for (CourseWeek key : keys) {
+            if (!slots.containsKey(key)) {
+                missing.add(key);
+                numCourses.add(key.getNumCourse());
+                numWeeks.add(key.getNumWeek());
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+        Map<CourseWeek, Long> registered = new HashMap<>();
+        for (CourseWeekCount count : registrationRepository.countGroupByCourseAndWeek(numCourses, numWeeks)) {
+            registered.put(new CourseWeek(count.getNumCourse(), count.getNumWeek()), count.getRegistrations());
+        }
+        for (CourseWeek key : missing) {
+            slots.putIfAbsent(key, new Slot(registered.getOrDefault(key, 0L).intValue()));
+        }
+    }
+
+    /**
+     * Realigns taken with the committed registrations of the slots that had no booking or release in flight
+     * while they were counted. A transaction is committed in the database before its completion callback
+     * updates the slot, so the count of a slot with pending acquisitions or releases cannot be told apart from
+     * a count that already includes them; such slots are left for the next run.
+     */
+    @Scheduled(fixedDelayString = "${registration.capacity.reconcile-ms:60000}")
+    public void reconcile() {
+        if (slots.isEmpty()) {
+            return;
+        }
+        Map<CourseWeek, long[]> quiet = new HashMap<>();
+        slots.forEach((key, slot) -> {
+            long changes = slot.changesBegun.get();
+            int taken = slot.taken.get();
+            boolean idle = slot.pendingAcquires.get() == 0 && slot.pendingReleases.get() == 0;
+            // no change was half done while taken and the pending counts were read
+            if (idle && slot.changesEnded.get() == changes) {
+                quiet.put(key, new long[]{changes, taken});
+            }
+        });
+        if (quiet.isEmpty()) {
+            return;
+        }
+
+        Map<CourseWeek, Long> committed = new HashMap<>();
+        for (CourseWeekCount count : registrationRepository.countGroupByCourseAndWeek()) {
+            committed.put(new CourseWeek(count.getNumCourse(), count.getNumWeek()), count.getRegistrations());
+        }
+
+        int corrected = 0;
+        for (Map.Entry<CourseWeek, long[]> entry : quiet.entrySet()) {
+            Slot slot = slots.get(entry.getKey());
+            int taken = (int) entry.getValue()[1];
+            int expected = committed.getOrDefault(entry.getKey(), 0L).intValue();
+            // a booking or release that started during the query may or may not be in the count
+            if (taken != expected && slot.changesBegun.get() == entry.getValue()[0]
+                    && slot.taken.compareAndSet(taken, expected)) {
+                corrected++;
+                if (expected < taken) {
+                    // seats found free, the waiting list of the slot goes first
+                    eventPublisher.publishEvent(new RegistrationReleasedEvent(entry.getKey().getNumCourse(),
+                            entry.getKey().getNumWeek()));
+                }
+            }
+        }
+        if (corrected > 0) {
+            log.info("Capacity ledger reconciled, {} course/week slots corrected", corrected);
+        }
+    }
+
+    private boolean acquire(Slot slot) {
+        int taken;
+        do {
+            taken = slot.taken.get();
+            if (taken >= COURSE_CAPACITY) {
+                // nothing changed, reconcile() does not have to know about it
+                return false;
+            }
+            slot.changing();
+            if (slot.taken.compareAndSet(taken, taken + 1)) {
+                slot.pendingAcquires.incrementAndGet();
+                slot.changed();
+                break;
+            }
+            slot.changed();
+        } while (true);
+
+        AfterTransaction.onCompletion(committed -> {
+            slot.changing();
+            if (!committed) {
+                slot.taken.decrementAndGet();
+            }
+            slot.pendingAcquires.decrementAndGet();
+            slot.changed();
+        });
+        return true;
+    }
+
+    private Slot slot(Course course, int numWeek) {
+        CourseWeek key = new CourseWeek(course.getNumCourse(), numWeek);
+        Slot slot = slots.get(key);
+        if (slot != null) {
+            return slot;
+        }
+        synchronized (seedLocks[Math.floorMod(key.hashCode(), SEED_STRIPES)]) {
+            slot = slots.get(key);
+            if (slot == null) {
+                Integer registered = registrationRepository.countByCourseAndNumWeek(course, numWeek);
+                slot = new Slot(registered == null ? 0 : registered);
+                slots.put(key, slot);
+            }
+            return slot;
+        }
+    }
+
+    private static Object[] newSeedLocks() {
+        Object[] locks = new Object[SEED_STRIPES];
+        for (int i = 0; i < SEED_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+        return locks;
+    }
+
+    private static final class Slot {
+        final AtomicInteger taken;
+        // seats held by transactions that have not completed yet
+        final AtomicInteger pendingAcquires = new AtomicInteger();
+        // seats given back by transactions that have not completed yet
+        final AtomicInteger pendingReleases = new AtomicInteger();
+        // every change to the fields above is counted before and after, see reconcile()
+        final AtomicLong changesBegun = new AtomicLong();
+        final AtomicLong changesEnded = new AtomicLong();
+
+        Slot(int taken) {
+            this.taken = new AtomicInteger(taken);
+        }
+
+        void changing() {
+            changesBegun.incrementAndGet();
+        }
+
+        void changed() {
+            changesEnded.incrementAndGet();
+        }
+    }
+}
@@ -2,15 +2,28 @@ package tn.esprit.spring.services;
 
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import tn.esprit.spring.dto.BulkRegistrationItem;
+import tn.esprit.spring.dto.BulkRegistrationResult;
+import tn.esprit.spring.dto.InstructorWeek;
+import tn.esprit.spring.dto.RegistrationOutcome;
+import tn.esprit.spring.dto.SkierCourseWeek;
 import tn.esprit.spring.entities.*;
+import tn.esprit.spring.events.RegistrationReleasedEvent;
 import tn.esprit.spring.repositories.ICourseRepository;
 import tn.esprit.spring.repositories.IRegistrationRepository;
 import tn.esprit.spring.repositories.ISkierRepository;
-import javax.transaction.Transactional;
 import java.time.LocalDate;
 import java.time.Period;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 
 @Slf4j
 @AllArgsConstructor
@@ -20,7 +33,10 @@ public class RegistrationServicesImpl implements  IRegistrationServices{
     private IRegistrationRepository registrationRepository;
     private ISkierRepository skierRepository;
     private ICourseRepository courseRepository;
-
+    private RegistrationCapacityLedger capacityLedger;
+    private IWaitlistServices waitlistServices;
+    private ApplicationEventPublisher eventPublisher;
+    private InstructorWeeksIndex instructorWeeksIndex;
 
     @Override
     public Registration addRegistrationAndAssignToSkier(Registration registration, Long numSkier) {
@@ -30,12 +46,30 @@ public class RegistrationServicesImpl implements  IRegistrationServices{
     }
 
     @Override
+    @Transactional
+    @RetryOnConflict
     public Registration assignRegistrationToCourse(Long numRegistration, Long numCourse) {
         Registration registration = registrationRepository.findById(numRegistration).orElse(null);
 	if(registration == null) {return null;}
         Course course = courseRepository.findById(numCourse).orElse(null);
+        Course previous = registration.getCourse();
+        boolean moved = previous == null || course == null || !previous.getNumCourse().equals(course.getNumCourse());
+        // the seat in the new course goes through the ledger like any other booking
+        if (moved && course != null && course.getTypeCourse() != TypeCourse.INDIVIDUAL
+                && !capacityLedger.tryAcquire(course, registration.getNumWeek())) {
+            log.info("registration outcome={} registrationId={} courseId={} week={}", RegistrationOutcome.COURSE_FULL,
+                    numRegistration, numCourse, registration.getNumWeek());
+            return null;
+        }
+        instructorWeeksIndex.registrationRemoved(previous, registration.getNumWeek());
         registration.setCourse(course);
-        return registrationRepository.save(registration);
+        instructorWeeksIndex.registrationAdded(course, registration.getNumWeek());
+        Registration saved = registrationRepository.save(registration);
+        if (moved && previous != null) {
+            capacityLedger.release(previous.getNumCourse(), registration.getNumWeek());
+            eventPublisher.publishEvent(new RegistrationReleasedEvent(previous.getNumCourse(), registration.getNumWeek()));
+        }
+        return saved;
     }
 
     @Transactional
@@ -49,60 +83,206 @@ public class RegistrationServicesImpl implements  IRegistrationServices{
         }
 
         if(registrationRepository.countDistinctByNumWeekAndSkier_NumSkierAndCourse_NumCourse(registration.getNumWeek(), skier.getNumSkier(), course.getNumCourse()) >=1){
-            log.info("Sorry, you're already register to this course of the week :" + registration.getNumWeek());
+            logOutcome(RegistrationOutcome.ALREADY_REGISTERED, skier, course, registration.getNumWeek());
             return null;
         }
 
 
         int ageSkieur = Period.between(skier.getDateOfBirth(), LocalDate.now()).getYears();
-        log.info("Age " + ageSkieur);
+        log.debug("registration skierId={} age={}", skier.getNumSkier(), ageSkieur);
 
         switch (course.getTypeCourse()) {
             case INDIVIDUAL:
-                log.info("add without tests");
+                logOutcome(RegistrationOutcome.REGISTERED, skier, course, registration.getNumWeek());
                 return assignRegistration(registration, skier, course);
 
             case COLLECTIVE_CHILDREN:
                 if (ageSkieur < 16) {
-                    log.info("Ok CHILD !");
-                    if (registrationRepository.countByCourseAndNumWeek(course, registration.getNumWeek()) < 6) {
-                        log.info("Course successfully added !");
+                    if (capacityLedger.tryAcquire(course, registration.getNumWeek())) {
+                        logOutcome(RegistrationOutcome.REGISTERED, skier, course, registration.getNumWeek());
                         return assignRegistration(registration, skier, course);
                     } else {
-                        log.info("Full Course ! Please choose another week to register !");
-                        return null;
+                        return putOnWaitlist(registration, skier, course);
                     }
                 }
                 else{
-                    log.info("Sorry, your age doesn't allow you to register for this course ! \n Try to Register to a Collective Adult Course...");
+                    // too old, a collective adult course would do
+                    logOutcome(RegistrationOutcome.AGE_NOT_ALLOWED, skier, course, registration.getNumWeek());
                 }
                 break;
 
             default:
                 if (ageSkieur >= 16) {
-                    log.info("Ok ADULT !");
-                    if (registrationRepository.countByCourseAndNumWeek(course, registration.getNumWeek()) < 6) {
-                        log.info("Course successfully added !");
+                    if (capacityLedger.tryAcquire(course, registration.getNumWeek())) {
+                        logOutcome(RegistrationOutcome.REGISTERED, skier, course, registration.getNumWeek());
                         return assignRegistration(registration, skier, course);
                     } else {
-                        log.info("Full Course ! Please choose another week to register !");
-                        return null;
+                        return putOnWaitlist(registration, skier, course);
                     }
                 }
-                log.info("Sorry, your age doesn't allow you to register for this course ! \n Try to Register to a Collective Child Course...");
+                // too young, a collective children course would do
+                logOutcome(RegistrationOutcome.AGE_NOT_ALLOWED, skier, course, registration.getNumWeek());
         }
         return registration;
 
     }
+    @Transactional
+    @Override
+    public List<BulkRegistrationResult> addRegistrationsInBulk(List<BulkRegistrationItem> items) {
+        if (items.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Set<Long> numSkiers = new HashSet<>();
+        Set<Long> numCourses = new HashSet<>();
+        Set<Integer> numWeeks = new HashSet<>();
+        for (BulkRegistrationItem item : items) {
+            numSkiers.add(item.getNumSkier());
+            numCourses.add(item.getNumCourse());
+            numWeeks.add(item.getNumWeek());
+        }
+
+        Map<Long, Skier> skiers = new HashMap<>();
+        skierRepository.findAllById(numSkiers).forEach(skier -> skiers.put(skier.getNumSkier(), skier));
+        Map<Long, Course> courses = new HashMap<>();
+        courseRepository.findAllById(numCourses).forEach(course -> courses.put(course.getNumCourse(), course));
+
+        Set<BulkRegistrationItem> registered = new HashSet<>();
+        if (!courses.isEmpty()) {
+            for (SkierCourseWeek existing : registrationRepository.findSkierCourseWeeks(courses.keySet(), numWeeks)) {
+                registered.add(new BulkRegistrationItem(existing.getNumSkier(), existing.getNumCourse(), existing.getNumWeek()));
+            }
+        }
+        List<CourseWeek> collectiveSlots = new ArrayList<>();
+        for (BulkRegistrationItem item : items) {
+            Course course = courses.get(item.getNumCourse());
+            if (course != null && course.getTypeCourse() != TypeCourse.INDIVIDUAL) {
+                collectiveSlots.add(new CourseWeek(course.getNumCourse(), item.getNumWeek()));
+            }
+        }
+        capacityLedger.preload(collectiveSlots);
+
+        List<BulkRegistrationResult> results = new ArrayList<>(items.size());
+        List<Registration> accepted = new ArrayList<>();
+        List<BulkRegistrationResult> acceptedResults = new ArrayList<>();
+        Set<BulkRegistrationItem> seen = new HashSet<>();
+        for (int i = 0; i < items.size(); i++) {
+            BulkRegistrationItem item = items.get(i);
+            Skier skier = skiers.get(item.getNumSkier());
+            Course course = courses.get(item.getNumCourse());
+            RegistrationOutcome outcome;
+            if (skier == null) {
+                outcome = RegistrationOutcome.SKIER_NOT_FOUND;
+            } else if (course == null) {
+                outcome = RegistrationOutcome.COURSE_NOT_FOUND;
+            } else if (!seen.add(item)) {
+                outcome = RegistrationOutcome.DUPLICATE_IN_REQUEST;
+            } else if (registered.contains(item)) {
+                outcome = RegistrationOutcome.ALREADY_REGISTERED;
+            } else if (!isAgeAllowed(skier, course)) {
+                outcome = RegistrationOutcome.AGE_NOT_ALLOWED;
+            } else if (course.getTypeCourse() != TypeCourse.INDIVIDUAL
+                    && !capacityLedger.tryAcquire(course, item.getNumWeek())) {
+                outcome = RegistrationOutcome.COURSE_FULL;
+            } else {
+                outcome = RegistrationOutcome.REGISTERED;
+            }
+
+            BulkRegistrationResult result = new BulkRegistrationResult(i, item.getNumSkier(), item.getNumCourse(),
+                    item.getNumWeek(), outcome, null);
+            results.add(result);
+            if (outcome == RegistrationOutcome.REGISTERED) {
+                Registration registration = new Registration();
+                registration.setNumWeek(item.getNumWeek());
+                registration.setSkier(skier);
+                registration.setCourse(course);
+                accepted.add(registration);
+                acceptedResults.add(result);
+            }
+        }
+
+        // ids come from the table generator, so hibernate.jdbc.batch_size groups these inserts
+        List<Registration> saved = new ArrayList<>();
+        registrationRepository.saveAll(accepted).forEach(saved::add);
+        saved.forEach(registration -> instructorWeeksIndex.registrationAdded(registration.getCourse(), registration.getNumWeek()));
+        for (int i = 0; i < saved.size(); i++) {
+            acceptedResults.get(i).setNumRegistration(saved.get(i).getNumRegistration());
+        }
+        log.info("bulk registration accepted={} requested={}", accepted.size(), items.size());
+        return results;
+    }
+
+    private static boolean isAgeAllowed(Skier skier, Course course) {
+        if (course.getTypeCourse() == TypeCourse.INDIVIDUAL) {
+            return true;
+        }
+        if (skier.getDateOfBirth() == null) {
+            return false;
+        }
+        int ageSkieur = Period.between(skier.getDateOfBirth(), LocalDate.now()).getYears();
+        return course.getTypeCourse() == TypeCourse.COLLECTIVE_CHILDREN ? ageSkieur < 16 : ageSkieur >= 16;
+    }
+
+    @Transactional
+    @Override
+    public void removeRegistration(Long numRegistration) {
+        Registration registration = registrationRepository.findById(numRegistration).orElse(null);
+        if (registration == null) {
+            return;
+        }
+        registrationRepository.delete(registration);
+        instructorWeeksIndex.registrationRemoved(registration.getCourse(), registration.getNumWeek());
+        if (registration.getCourse() != null) {
+            capacityLedger.release(registration.getCourse().getNumCourse(), registration.getNumWeek());
+            eventPublisher.publishEvent(new RegistrationReleasedEvent(registration.getCourse().getNumCourse(), registration.getNumWeek()));
+        }
+    }
+
+    private Registration putOnWaitlist(Registration registration, Skier skier, Course course) {
+        long position = waitlistServices.addToWaitlist(skier, course, registration.getNumWeek());
+        if (log.isInfoEnabled()) {
+            log.info("registration outcome={} skierId={} courseId={} week={} position={}", RegistrationOutcome.WAITLISTED,
+                    skier.getNumSkier(), course.getNumCourse(), registration.getNumWeek(), position);
+        }
+        return null;
+    }
+
+    /**
+     * One key=value event per booking; the argument array is only built when it gets logged.
+     */
+    private static void logOutcome(RegistrationOutcome outcome, Skier skier, Course course, int numWeek) {
+        if (log.isInfoEnabled()) {
+            log.info("registration outcome={} skierId={} courseId={} week={}", outcome, skier.getNumSkier(),
+                    course.getNumCourse(), numWeek);
+        }
+    }
+
     private Registration assignRegistration (Registration registration, Skier skier, Course course){
         registration.setSkier(skier);
         registration.setCourse(course);
+        instructorWeeksIndex.registrationAdded(course, registration.getNumWeek());
         return registrationRepository.save(registration);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Integer> numWeeksCourseOfInstructorBySupport(Long numInstructor, Support support) {
-        return registrationRepository.numWeeksCourseOfInstructorBySupport(numInstructor, support);
+        return instructorWeeksIndex.weeksOf(numInstructor, support)
+                .orElseGet(() -> new ArrayList<>(new TreeSet<>(
+                        registrationRepository.numWeeksCourseOfInstructorBySupport(numInstructor, support))));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<Long, List<Integer>> numWeeksCourseOfAllInstructorsBySupport(Support support) {
+        return instructorWeeksIndex.weeksOfAllInstructors(support).orElseGet(() -> {
+            Map<Long, TreeSet<Integer>> weeks = new HashMap<>();
+            for (InstructorWeek week : registrationRepository.numWeeksCourseOfAllInstructorsBySupport(support)) {
+                weeks.computeIfAbsent(week.getNumInstructor(), i -> new TreeSet<>()).add(week.getNumWeek());
+            }
+            Map<Long, List<Integer>> sorted = new HashMap<>();
+            weeks.forEach((numInstructor, numWeeks) -> sorted.put(numInstructor, new ArrayList<>(numWeeks)));
+            return sorted;
+        });
     }
 
 }
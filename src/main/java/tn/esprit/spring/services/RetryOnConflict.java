@@ -0,0 +1,30 @@
+package tn.esprit.spring.services;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Runs the service method again when it loses an optimistic locking race (another transaction
+ * updated one of the rows it read in the meantime), see RetryOnConflictAspect.
+ * Only meant for methods that read the rows they change, in their own transaction: an update copies the
+ * client's values onto the row it has just read, and checks the version the client read only when one
+ * was sent (StaleVersionException, not retried).
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RetryOnConflict {
+
+    /**
+     * Attempts in total, the first one included.
+     */
+    int maxAttempts() default 3;
+
+    /**
+     * Upper bound of the random pause before the first retry, doubled for each following one.
+     */
+    long backoffMs() default 20;
+}
@@ -1,13 +1,22 @@
 package tn.esprit.spring.services;
 
 import lombok.AllArgsConstructor;
+import org.hibernate.Hibernate;
 import org.springframework.stereotype.Service;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import tn.esprit.spring.dto.KeysetPage;
+import tn.esprit.spring.dto.SkierSummary;
 import tn.esprit.spring.entities.*;
 import tn.esprit.spring.repositories.*;
 
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Consumer;
 
 @AllArgsConstructor
 @Service
@@ -23,13 +32,32 @@ public class SkierServicesImpl implements ISkierServices {
 
     private ISubscriptionRepository subscriptionRepository;
 
+    private InstructorWeeksIndex instructorWeeksIndex;
+
+    private RecurringRevenueAggregator revenueAggregator;
+
+    private EntityManager entityManager;
+
+    private RegistrationCapacityLedger capacityLedger;
+
+    private IWaitlistServices waitlistServices;
+
 
     @Override
+    @Transactional(readOnly = true)
     public List<Skier> retrieveAllSkiers() {
-        return skierRepository.findAll();
+        return retrieveAllSkiers(true);
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public List<Skier> retrieveAllSkiers(boolean withRegistrations) {
+        return withRegistrations ? skierRepository.findAllWithRegistrations() : skierRepository.findAllWithSubscription();
+    }
+
+    @Override
+    @Transactional
+    @RetryOnConflict
     public Skier addSkier(Skier skier) {
         switch (skier.getSubscription().getTypeSub()) {
             case ANNUAL:
@@ -42,10 +70,28 @@ public class SkierServicesImpl implements ISkierServices {
                 skier.getSubscription().setEndDate(skier.getSubscription().getStartDate().plusMonths(1));
                 break;
         }
-        return skierRepository.save(skier);
+        boolean newSubscription = skier.getSubscription().getNumSub() == null;
+        Skier managed = skier.getNumSkier() == null ? null : skierRepository.findById(skier.getNumSkier()).orElse(null);
+        if (managed != null) {
+            // an existing id: the stored skier is updated, like CourseServicesImpl.updateCourse
+            StaleVersionException.check(skier.getExpectedVersion(), managed.getVersion(), Skier.class, managed.getNumSkier());
+            managed.setFirstName(skier.getFirstName());
+            managed.setLastName(skier.getLastName());
+            managed.setDateOfBirth(skier.getDateOfBirth());
+            managed.setCity(skier.getCity());
+            managed.setSubscription(skier.getSubscription());
+            skier = managed;
+        }
+        Skier saved = skierRepository.save(skier);
+        if (newSubscription) {
+            revenueAggregator.subscriptionAdded(saved.getSubscription());
+        }
+        return saved;
     }
 
     @Override
+    @Transactional
+    @RetryOnConflict
     public Skier assignSkierToSubscription(Long numSkier, Long numSubscription) {
         Skier skier = skierRepository.findById(numSkier).orElse(null);
 	if(skier == null) {return null;}
@@ -55,29 +101,66 @@ public class SkierServicesImpl implements ISkierServices {
     }
 
     @Override
+    @Transactional
     public Skier addSkierAndAssignToCourse(Skier skier, Long numCourse) {
+        boolean newSubscription = skier.getSubscription() != null && skier.getSubscription().getNumSub() == null;
         Skier savedSkier = skierRepository.save(skier);
+        if (newSubscription) {
+            revenueAggregator.subscriptionAdded(savedSkier.getSubscription());
+        }
         Course course = courseRepository.getById(numCourse);
         Set<Registration> registrations = savedSkier.getRegistrations();
+        if (course.getTypeCourse() != TypeCourse.INDIVIDUAL) {
+            // seats are taken through the ledger, the weeks that are full put the skier on their waitlist
+            List<CourseWeek> slots = new ArrayList<>();
+            registrations.forEach(r -> slots.add(new CourseWeek(numCourse, r.getNumWeek())));
+            capacityLedger.preload(slots);
+            registrations.removeIf(r -> {
+                if (capacityLedger.tryAcquire(course, r.getNumWeek())) {
+                    return false;
+                }
+                waitlistServices.addToWaitlist(savedSkier, course, r.getNumWeek());
+                return true;
+            });
+        }
         for (Registration r : registrations) {
             r.setSkier(savedSkier);
             r.setCourse(course);
-            registrationRepository.save(r);
+            instructorWeeksIndex.registrationAdded(course, r.getNumWeek());
         }
+        // one transaction, so the inserts go out as a single JDBC batch
+        registrationRepository.saveAll(registrations);
         return savedSkier;
     }
 
     @Override
     public void removeSkier(Long numSkier) {
+        // the subscription goes with the skier (cascade remove)
+        Subscription subscription = skierRepository.findById(numSkier).map(Skier::getSubscription).orElse(null);
         skierRepository.deleteById(numSkier);
+        revenueAggregator.subscriptionRemoved(subscription);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Skier retrieveSkier(Long numSkier) {
-        return skierRepository.findById(numSkier).orElse(null);
+        Skier skier = skierRepository.findById(numSkier).orElse(null);
+        if (skier != null) {
+            // the skier may be shared by coalesced requests, nothing can be left to load lazily
+            Hibernate.initialize(skier.getRegistrations());
+        }
+        return skier;
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public List<Skier> retrieveSkiersByIds(Collection<Long> numSkiers) {
+        return BatchLookup.byIds(numSkiers, skierRepository::findDistinctByNumSkierIn, Skier::getNumSkier);
+    }
+
+    @Override
+    @Transactional
+    @RetryOnConflict
     public Skier assignSkierToPiste(Long numSkieur, Long numPiste) {
         Skier skier = skierRepository.findById(numSkieur).orElse(null);
 	if(skier == null){ return null;}
@@ -95,7 +178,38 @@ public class SkierServicesImpl implements ISkierServices {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Skier> retrieveSkiersBySubscriptionType(TypeSubscription typeSubscription) {
-        return skierRepository.findBySubscription_TypeSub(typeSubscription);
+        return retrieveSkiersBySubscriptionType(typeSubscription, true);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Skier> retrieveSkiersBySubscriptionType(TypeSubscription typeSubscription, boolean withRegistrations) {
+        return withRegistrations ? skierRepository.findDistinctBySubscription_TypeSub(typeSubscription)
+                : skierRepository.findBySubscription_TypeSub(typeSubscription);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<SkierSummary> retrieveAllSkierSummaries() {
+        return skierRepository.findAllSummaries();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<SkierSummary> retrieveSkierSummariesBySubscriptionType(TypeSubscription typeSubscription) {
+        return skierRepository.findSummariesBySubscriptionType(typeSubscription);
+    }
+
+    @Override
+    public List<Skier> retrieveSkiersAfter(Long after, int size) {
+        return skierRepository.findByNumSkierGreaterThanOrderByNumSkierAsc(after, PageRequest.of(0, KeysetPage.clampSize(size)));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamAllSkiers(Consumer<Skier> action) {
+        EntityStreams.forEach(skierRepository.streamAll(), entityManager, action);
     }
 }
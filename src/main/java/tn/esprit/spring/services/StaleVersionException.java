@@ -0,0 +1,24 @@
+package tn.esprit.spring.services;
+
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+/**
+ * An update sent with the version the client read, while the row has been changed since.
+ * Answered 409 like any other optimistic locking conflict, but never retried: the row would be read
+ * again at the same newer version.
+ */
+public class StaleVersionException extends ObjectOptimisticLockingFailureException {
+
+    public StaleVersionException(Class<?> entityClass, Object identifier) {
+        super(entityClass, identifier);
+    }
+
+    /**
+     * Fails when the client sent a version and the row is at another one; no version, no precondition.
+     */
+    static void check(Long expectedVersion, long version, Class<?> entityClass, Object identifier) {
+        if (expectedVersion != null && expectedVersion != version) {
+            throw new StaleVersionException(entityClass, identifier);
+        }
+    }
+}
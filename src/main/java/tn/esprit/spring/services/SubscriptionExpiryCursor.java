@@ -0,0 +1,31 @@
+package tn.esprit.spring.services;
+
+import org.springframework.stereotype.Component;
+import tn.esprit.spring.dto.ExpiredSubscription;
+
+import java.time.LocalDate;
+
+/**
+ * High-water mark of the subscription expiry job: the (end date, subscription) of the last
+ * expired subscription already reported. Kept in memory, so after a restart the job reports
+ * the expired history once more before going incremental again.
+ */
+@Component
+public class SubscriptionExpiryCursor {
+
+    private LocalDate endDate = LocalDate.ofEpochDay(0);
+    private Long numSub = 0L;
+
+    public synchronized LocalDate getEndDate() {
+        return endDate;
+    }
+
+    public synchronized Long getNumSub() {
+        return numSub;
+    }
+
+    public synchronized void advanceTo(ExpiredSubscription last) {
+        endDate = last.getEndDate();
+        numSub = last.getNumSub();
+    }
+}
@@ -2,15 +2,17 @@ package tn.esprit.spring.services;
 
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import tn.esprit.spring.entities.Skier;
+import org.springframework.transaction.annotation.Transactional;
+import tn.esprit.spring.dto.ExpiredSubscription;
 import tn.esprit.spring.entities.Subscription;
 import tn.esprit.spring.entities.TypeSubscription;
-import tn.esprit.spring.repositories.ISkierRepository;
 import tn.esprit.spring.repositories.ISubscriptionRepository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 
@@ -19,9 +21,13 @@ import java.util.Set;
 @Service
 public class SubscriptionServicesImpl implements ISubscriptionServices{
 
+    static final int EXPIRY_CHUNK_SIZE = 500;
+
     private ISubscriptionRepository subscriptionRepository;
 
-    private ISkierRepository skierRepository;
+    private SubscriptionExpiryCursor expiryCursor;
+
+    private RecurringRevenueAggregator revenueAggregator;
 
     @Override
     public Subscription addSubscription(Subscription subscription) {
@@ -36,12 +42,34 @@ public class SubscriptionServicesImpl implements ISubscriptionServices{
                 subscription.setEndDate(subscription.getStartDate().plusMonths(1));
                 break;
         }
-        return subscriptionRepository.save(subscription);
+        Subscription saved = subscriptionRepository.save(subscription);
+        revenueAggregator.subscriptionAdded(saved);
+        return saved;
     }
 
     @Override
+    @Transactional
+    @RetryOnConflict
     public Subscription updateSubscription(Subscription subscription) {
-        return subscriptionRepository.save(subscription);
+        Subscription previous = subscription.getNumSub() == null ? null
+                : subscriptionRepository.findById(subscription.getNumSub()).orElse(null);
+        if (previous == null) {
+            Subscription saved = subscriptionRepository.save(subscription);
+            revenueAggregator.subscriptionAdded(saved);
+            return saved;
+        }
+        StaleVersionException.check(subscription.getExpectedVersion(), previous.getVersion(), Subscription.class,
+                previous.getNumSub());
+        // read before the client's values are copied onto the managed instance
+        TypeSubscription previousType = previous.getTypeSub();
+        Float previousPrice = previous.getPrice();
+        previous.setStartDate(subscription.getStartDate());
+        previous.setEndDate(subscription.getEndDate());
+        previous.setPrice(subscription.getPrice());
+        previous.setTypeSub(subscription.getTypeSub());
+        Subscription saved = subscriptionRepository.save(previous);
+        revenueAggregator.subscriptionChanged(previousType, previousPrice, saved);
+        return saved;
     }
 
     @Override
@@ -50,11 +78,19 @@ public class SubscriptionServicesImpl implements ISubscriptionServices{
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public List<Subscription> retrieveSubscriptionsByIds(Collection<Long> numSubscriptions) {
+        return BatchLookup.byIds(numSubscriptions, subscriptionRepository::findAllById, Subscription::getNumSub);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public Set<Subscription> getSubscriptionByType(TypeSubscription type) {
         return subscriptionRepository.findByTypeSubOrderByStartDateAsc(type);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Subscription> retrieveSubscriptionsByDates(LocalDate startDate, LocalDate endDate) {
         return subscriptionRepository.getSubscriptionsByStartDateBetween(startDate, endDate);
     }
@@ -62,19 +98,33 @@ public class SubscriptionServicesImpl implements ISubscriptionServices{
     @Override
     @Scheduled(cron = "*/30 * * * * *") /* Cron expression to run a job every 30 secondes */
     public void retrieveSubscriptions() {
-        for (Subscription sub: subscriptionRepository.findDistinctOrderByEndDateAsc()) {
-            Skier   aSkier = skierRepository.findBySubscription(sub);
-            log.info(sub.getNumSub().toString() + " | "+ sub.getEndDate().toString()
-                    + " | "+ aSkier.getFirstName() + " " + aSkier.getLastName());
-        }
+        LocalDate today = LocalDate.now();
+        List<ExpiredSubscription> chunk;
+        do {
+            chunk = subscriptionRepository.findExpiredAfter(today, expiryCursor.getEndDate(), expiryCursor.getNumSub(),
+                    PageRequest.of(0, EXPIRY_CHUNK_SIZE));
+            for (ExpiredSubscription sub : chunk) {
+                log.info("{} | {} | {} {}", sub.getNumSub(), sub.getEndDate(), sub.getFirstName(), sub.getLastName());
+            }
+            if (!chunk.isEmpty()) {
+                expiryCursor.advanceTo(chunk.get(chunk.size() - 1));
+            }
+        } while (chunk.size() == EXPIRY_CHUNK_SIZE);
     }
 
    // @Scheduled(cron = "* 0 9 1 * *") /* Cron expression to run a job every month at 9am */
     @Scheduled(cron = "*/30 * * * * *") /* Cron expression to run a job every 30 secondes */
     public void showMonthlyRecurringRevenue() {
-        Float revenue = subscriptionRepository.recurringRevenueByTypeSubEquals(TypeSubscription.MONTHLY)
-                + subscriptionRepository.recurringRevenueByTypeSubEquals(TypeSubscription.SEMESTRIEL)/6
-                + subscriptionRepository.recurringRevenueByTypeSubEquals(TypeSubscription.ANNUAL)/12;
-        log.info("Monthly Revenue = " + revenue);
+        log.info("Monthly Revenue = {}", revenueAggregator.monthlyRecurringRevenue());
+    }
+
+    @Override
+    public Float retrieveMonthlyRecurringRevenue() {
+        return revenueAggregator.monthlyRecurringRevenue();
+    }
+
+    @Override
+    public Float reconcileMonthlyRecurringRevenue() {
+        return revenueAggregator.reconcile();
     }
 }
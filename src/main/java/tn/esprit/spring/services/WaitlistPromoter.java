@@ -0,0 +1,70 @@
+package tn.esprit.spring.services;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import tn.esprit.spring.dto.CourseWeekCount;
+import tn.esprit.spring.events.RegistrationReleasedEvent;
+import tn.esprit.spring.repositories.IWaitlistEntryRepository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Moves waitlisted skiers into their course once seats free up.
+ * Released seats are only recorded on the request thread; the promotions themselves
+ * run in batches on the scheduler, one transaction per course/week.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class WaitlistPromoter {
+
+    private final IWaitlistServices waitlistServices;
+    private final IWaitlistEntryRepository waitlistEntryRepository;
+    private final RegistrationCapacityLedger capacityLedger;
+
+    private final Set<CourseWeek> released = ConcurrentHashMap.newKeySet();
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRegistrationReleased(RegistrationReleasedEvent event) {
+        released.add(new CourseWeek(event.getNumCourse(), event.getNumWeek()));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeWaitlists() {
+        Map<CourseWeek, Integer> entries = new HashMap<>();
+        for (CourseWeekCount waiting : waitlistEntryRepository.countGroupByCourseAndWeek()) {
+            CourseWeek slot = new CourseWeek(waiting.getNumCourse(), waiting.getNumWeek());
+            entries.put(slot, waiting.getRegistrations().intValue());
+            released.add(slot);
+        }
+        // the ledger keeps the free seats of these slots for the waiting skiers
+        capacityLedger.waitlistLoaded(entries);
+    }
+
+    @Scheduled(fixedDelayString = "${registration.waitlist.promote-ms:2000}")
+    public void promoteReleased() {
+        if (released.isEmpty()) {
+            return;
+        }
+        List<CourseWeek> batch = new ArrayList<>(released);
+        released.removeAll(batch);
+        for (CourseWeek slot : batch) {
+            try {
+                waitlistServices.promoteWaitlisted(slot.getNumCourse(), slot.getNumWeek());
+            } catch (RuntimeException e) {
+                log.warn("Waiting list promotion failed for course {} week {}, will retry", slot.getNumCourse(), slot.getNumWeek(), e);
+                released.add(slot);
+            }
+        }
+    }
+}
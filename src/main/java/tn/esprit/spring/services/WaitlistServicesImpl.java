@@ -0,0 +1,105 @@
+package tn.esprit.spring.services;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import tn.esprit.spring.entities.Course;
+import tn.esprit.spring.entities.Registration;
+import tn.esprit.spring.entities.Skier;
+import tn.esprit.spring.entities.WaitlistEntry;
+import tn.esprit.spring.events.WaitlistPromotedEvent;
+import tn.esprit.spring.repositories.ICourseRepository;
+import tn.esprit.spring.repositories.IRegistrationRepository;
+import tn.esprit.spring.repositories.IWaitlistEntryRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+@Slf4j
+@AllArgsConstructor
+@Service
+public class WaitlistServicesImpl implements IWaitlistServices {
+
+    private IWaitlistEntryRepository waitlistEntryRepository;
+    private IRegistrationRepository registrationRepository;
+    private ICourseRepository courseRepository;
+    private RegistrationCapacityLedger capacityLedger;
+    private ApplicationEventPublisher eventPublisher;
+    private InstructorWeeksIndex instructorWeeksIndex;
+    @Override
+    public long addToWaitlist(Skier skier, Course course, int numWeek) {
+        Optional<WaitlistEntry> existing = waitlistEntryRepository
+                .findBySkier_NumSkierAndCourse_NumCourseAndNumWeek(skier.getNumSkier(), course.getNumCourse(), numWeek);
+        WaitlistEntry entry = existing.orElseGet(() -> {
+            capacityLedger.waitlistChanged(course.getNumCourse(), numWeek, 1);
+            return waitlistEntryRepository.save(new WaitlistEntry(null, numWeek, LocalDateTime.now(), skier, course));
+        });
+        return position(entry);
+    }
+
+    @Override
+    public Long retrieveWaitlistPosition(Long numSkier, Long numCourse, int numWeek) {
+        return waitlistEntryRepository.findBySkier_NumSkierAndCourse_NumCourseAndNumWeek(numSkier, numCourse, numWeek)
+                .map(this::position)
+                .orElse(null);
+    }
+
+    @Transactional
+    @Override
+    public List<Registration> promoteWaitlisted(Long numCourse, int numWeek) {
+        List<Registration> promoted = new ArrayList<>();
+        Course course = courseRepository.findById(numCourse).orElse(null);
+        if (course == null) {
+            return promoted;
+        }
+        List<WaitlistEntry> queue = waitlistEntryRepository.findByCourse_NumCourseAndNumWeekOrderByNumEntryAsc(
+                numCourse, numWeek, PageRequest.of(0, RegistrationCapacityLedger.COURSE_CAPACITY));
+        if (queue.isEmpty()) {
+            // nobody left to keep seats for, e.g. entries counted on another instance
+            capacityLedger.waitlistEmptied(numCourse, numWeek);
+            return promoted;
+        }
+        List<WaitlistEntry> served = new ArrayList<>();
+        for (WaitlistEntry entry : queue) {
+            if (registrationRepository.countDistinctByNumWeekAndSkier_NumSkierAndCourse_NumCourse(
+                    numWeek, entry.getSkier().getNumSkier(), numCourse) >= 1) {
+                // registered through another path in the meantime
+                served.add(entry);
+                continue;
+            }
+            if (!capacityLedger.tryAcquireForWaitlist(course, numWeek)) {
+                break;
+            }
+            Registration registration = new Registration();
+            registration.setNumWeek(numWeek);
+            registration.setSkier(entry.getSkier());
+            registration.setCourse(course);
+            instructorWeeksIndex.registrationAdded(course, numWeek);
+            promoted.add(registration);
+            served.add(entry);
+        }
+        if (served.isEmpty()) {
+            return promoted;
+        }
+
+        registrationRepository.saveAll(promoted);
+        waitlistEntryRepository.deleteAll(served);
+        capacityLedger.waitlistChanged(numCourse, numWeek, -served.size());
+        for (Registration registration : promoted) {
+            eventPublisher.publishEvent(new WaitlistPromotedEvent(registration.getNumRegistration(),
+                    registration.getSkier().getNumSkier(), numCourse, numWeek));
+        }
+        log.info("waitlist promoted={} courseId={} week={}", promoted.size(), numCourse, numWeek);
+        return promoted;
+    }
+
+    private long position(WaitlistEntry entry) {
+        return waitlistEntryRepository.countByCourse_NumCourseAndNumWeekAndNumEntryLessThan(
+                entry.getCourse().getNumCourse(), entry.getNumWeek(), entry.getNumEntry()) + 1;
+    }
+}
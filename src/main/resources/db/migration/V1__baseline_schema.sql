@@ -0,0 +1,98 @@
+-- Schema of the entities as ddl-auto=update created it on MySQL 5 / InnoDB.
+-- Databases that already have it are baselined below this version (spring.flyway.baseline-version=0), so it runs on
+-- them as well: every statement skips the existing tables and only id_generator and waitlist_entry are added.
+
+create table if not exists subscription (
+    num_sub    bigint not null auto_increment,
+    start_date date,
+    end_date   date,
+    price      float,
+    type_sub   integer,
+    primary key (num_sub)
+) engine=InnoDB;
+
+create table if not exists skier (
+    num_skier            bigint not null auto_increment,
+    first_name           varchar(255),
+    last_name            varchar(255),
+    date_of_birth        date,
+    city                 varchar(255),
+    subscription_num_sub bigint,
+    primary key (num_skier),
+    constraint uk_skier_subscription unique (subscription_num_sub),
+    constraint fk_skier_subscription foreign key (subscription_num_sub) references subscription (num_sub)
+) engine=InnoDB;
+
+create table if not exists piste (
+    num_piste  bigint not null auto_increment,
+    name_piste varchar(255),
+    color      varchar(255),
+    length     integer not null,
+    slope      integer not null,
+    primary key (num_piste)
+) engine=InnoDB;
+
+-- Skier.pistes
+create table if not exists excursion (
+    num_skier bigint not null,
+    num_piste bigint not null,
+    primary key (num_skier, num_piste),
+    constraint fk_excursion_skier foreign key (num_skier) references skier (num_skier),
+    constraint fk_excursion_piste foreign key (num_piste) references piste (num_piste)
+) engine=InnoDB;
+
+create table if not exists course (
+    num_course  bigint not null auto_increment,
+    level       integer not null,
+    type_course varchar(255),
+    support     varchar(255),
+    price       float,
+    time_slot   integer not null,
+    primary key (num_course)
+) engine=InnoDB;
+
+create table if not exists instructor (
+    num_instructor bigint not null auto_increment,
+    first_name     varchar(255),
+    last_name      varchar(255),
+    date_of_hire   date,
+    primary key (num_instructor)
+) engine=InnoDB;
+
+-- Instructor.courses, a unidirectional one-to-many: a course has at most one instructor
+create table if not exists instructor_courses (
+    instructor_num_instructor bigint not null,
+    courses_num_course        bigint not null,
+    primary key (instructor_num_instructor, courses_num_course),
+    constraint uk_instructor_courses_course unique (courses_num_course),
+    constraint fk_instructor_courses_instructor foreign key (instructor_num_instructor) references instructor (num_instructor),
+    constraint fk_instructor_courses_course foreign key (courses_num_course) references course (num_course)
+) engine=InnoDB;
+
+-- ids come from id_generator, see Registration
+create table if not exists registration (
+    num_registration  bigint not null,
+    num_week          integer not null,
+    skier_num_skier   bigint,
+    course_num_course bigint,
+    primary key (num_registration),
+    constraint fk_registration_skier foreign key (skier_num_skier) references skier (num_skier),
+    constraint fk_registration_course foreign key (course_num_course) references course (num_course)
+) engine=InnoDB;
+
+create table if not exists id_generator (
+    sequence_name varchar(255) not null,
+    next_val      bigint,
+    primary key (sequence_name)
+) engine=InnoDB;
+
+create table if not exists waitlist_entry (
+    num_entry         bigint not null auto_increment,
+    num_week          integer not null,
+    created_at        datetime,
+    skier_num_skier   bigint,
+    course_num_course bigint,
+    primary key (num_entry),
+    constraint fk_waitlist_entry_skier foreign key (skier_num_skier) references skier (num_skier),
+    constraint fk_waitlist_entry_course foreign key (course_num_course) references course (num_course)
+) engine=InnoDB;
@@ -0,0 +1,11 @@
+-- Registration ids used to come from an auto-increment column, the pooled id_generator has to start above them.
+-- The pooled optimizer hands out (next_val - 50, next_val], 50 being Registration.ID_ALLOCATION_SIZE.
+insert into id_generator (sequence_name, next_val)
+select 'registration', coalesce(max(num_registration), 0) + 50
+from registration
+where not exists (select 1 from id_generator where sequence_name = 'registration');
+
+update id_generator
+set next_val = (select coalesce(max(num_registration), 0) + 50 from registration)
+where sequence_name = 'registration'
+  and next_val < (select coalesce(max(num_registration), 0) + 50 from registration);
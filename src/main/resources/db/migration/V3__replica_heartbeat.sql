@@ -0,0 +1,6 @@
+-- Written on the primary, read back on the replicas to measure their lag (ReplicaLagMonitor)
+create table if not exists replica_heartbeat (
+    id      integer not null,
+    beat_at bigint  not null,
+    primary key (id)
+) engine=InnoDB;
@@ -0,0 +1,15 @@
+-- Registration capacity counts (countByCourseAndNumWeek, countGroupByCourseAndWeek) seek on course then week.
+-- InnoDB secondary indexes carry the primary key, so count(*) never reads the rows.
+-- This index also serves the course foreign key.
+create index idx_registration_course_week on registration (course_num_course, num_week);
+
+-- Duplicate registration check and findSkierCourseWeeks: every column they read is in the index.
+create index idx_registration_week_skier_course on registration (num_week, skier_num_skier, course_num_course);
+
+-- findByTypeSubOrderByStartDateAsc reads the index in start_date order, no filesort.
+create index idx_subscription_type_start on subscription (type_sub, start_date);
+
+-- findExpiredAfter pages on (end_date, num_sub), i.e. this index with its implicit primary key suffix.
+create index idx_subscription_end_date on subscription (end_date);
+
+-- skier (subscription_num_sub) is already indexed by uk_skier_subscription.
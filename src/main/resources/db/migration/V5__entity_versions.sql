@@ -0,0 +1,8 @@
+-- Optimistic locking: Hibernate checks and increments these on every update.
+-- Rows written before this migration, or by bulk inserts that leave the column out, start at 0.
+alter table skier add column version bigint not null default 0;
+alter table course add column version bigint not null default 0;
+alter table piste add column version bigint not null default 0;
+alter table instructor add column version bigint not null default 0;
+alter table subscription add column version bigint not null default 0;
+alter table registration add column version bigint not null default 0;
@@ -0,0 +1,11 @@
+-- Transactional outbox (OutboxEventListener), drained into the change log by OutboxRelay.
+-- Only pending events stay here, the auto_increment id gives their relay order.
+create table if not exists outbox_event (
+    num_event      bigint not null auto_increment,
+    aggregate_type varchar(255),
+    aggregate_id   bigint,
+    change_type    varchar(255),
+    payload        longtext,
+    occurred_at    datetime,
+    primary key (num_event)
+) engine=InnoDB;
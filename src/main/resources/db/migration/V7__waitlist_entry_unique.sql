@@ -0,0 +1,13 @@
+-- A skier waits at most once for a course/week (WaitlistServicesImpl.addToWaitlist looks the entry up first,
+-- this closes the race between two concurrent bookings). Duplicates keep their earliest entry.
+delete from waitlist_entry
+where num_entry not in (
+    select kept.num_entry from (
+        select min(num_entry) as num_entry
+        from waitlist_entry
+        group by skier_num_skier, course_num_course, num_week
+    ) kept
+);
+
+alter table waitlist_entry
+    add constraint uk_waitlist_entry_skier_course_week unique (skier_num_skier, course_num_course, num_week);
@@ -0,0 +1,165 @@
+package tn.esprit.spring.configs;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import tn.esprit.spring.controllers.JsonArrayStreamer;
+import tn.esprit.spring.controllers.SkierRestController;
+import tn.esprit.spring.entities.Skier;
+import tn.esprit.spring.entities.Subscription;
+import tn.esprit.spring.entities.TypeSubscription;
+import tn.esprit.spring.services.ISkierServices;
+import tn.esprit.spring.services.ReadCoalescer;
+
+import java.time.LocalDate;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The skier endpoints stand for every controller: the converters and the fields= advice are not specific to them.
+ */
+@WebMvcTest(SkierRestController.class)
+@Import({BinaryFormatsConfig.class, JacksonConfig.class})
+class BinaryFormatsConfigTest {
+
+    private static final MediaType SMILE = MediaType.valueOf("application/x-jackson-smile");
+
+    private final ObjectMapper cbor = new ObjectMapper(new CBORFactory());
+    private final ObjectMapper smile = new ObjectMapper(new SmileFactory());
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private ISkierServices skierServices;
+
+    @MockBean
+    private ReadCoalescer readCoalescer;
+
+    @MockBean
+    private JsonArrayStreamer jsonArrayStreamer;
+
+    @BeforeEach
+    void setUp() {
+        when(skierServices.retrieveAllSkiers(anyBoolean())).thenReturn(Collections.singletonList(skier()));
+        when(skierServices.addSkier(any(Skier.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    void testCbor_roundTrip() throws Exception {
+        byte[] body = cbor.writeValueAsBytes(cbor.createObjectNode()
+                .put("firstName", "Amine").put("lastName", "Trabelsi").put("city", "Tunis"));
+
+        MvcResult result = mockMvc.perform(post("/skier/add").contentType(MediaType.APPLICATION_CBOR)
+                        .content(body).accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_CBOR))
+                .andReturn();
+
+        JsonNode skier = cbor.readTree(result.getResponse().getContentAsByteArray());
+        assertEquals("Amine", skier.get("firstName").asText());
+        assertEquals("Tunis", skier.get("city").asText());
+    }
+
+    @Test
+    void testSmile_roundTrip() throws Exception {
+        byte[] body = smile.writeValueAsBytes(smile.createObjectNode()
+                .put("firstName", "Amine").put("lastName", "Trabelsi").put("city", "Tunis"));
+
+        MvcResult result = mockMvc.perform(post("/skier/add").contentType(SMILE).content(body).accept(SMILE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(SMILE))
+                .andReturn();
+
+        JsonNode skier = smile.readTree(result.getResponse().getContentAsByteArray());
+        assertEquals("Amine", skier.get("firstName").asText());
+        assertEquals("Trabelsi", skier.get("lastName").asText());
+    }
+
+    @Test
+    void testJson_stillTheDefault() throws Exception {
+        mockMvc.perform(get("/skier/all"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+    }
+
+    @Test
+    void testCbor_fieldsApplied() throws Exception {
+        MvcResult result = mockMvc.perform(get("/skier/all").param("fields", "numSkier,firstName,subscription.endDate")
+                        .accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_CBOR))
+                .andReturn();
+
+        JsonNode skier = cbor.readTree(result.getResponse().getContentAsByteArray()).get(0);
+        assertEquals(1L, skier.get("numSkier").asLong());
+        assertEquals("Amine", skier.get("firstName").asText());
+        assertFalse(skier.has("lastName"));
+        assertTrue(skier.get("subscription").has("endDate"));
+        assertFalse(skier.get("subscription").has("price"));
+    }
+
+    @Test
+    void testSmile_fieldsApplied() throws Exception {
+        MvcResult result = mockMvc.perform(get("/skier/all").param("fields", "numSkier,firstName,subscription.endDate")
+                        .accept(SMILE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(SMILE))
+                .andReturn();
+
+        JsonNode skier = smile.readTree(result.getResponse().getContentAsByteArray()).get(0);
+        assertEquals(1L, skier.get("numSkier").asLong());
+        assertEquals("Amine", skier.get("firstName").asText());
+        assertFalse(skier.has("lastName"));
+        assertTrue(skier.get("subscription").has("endDate"));
+        assertFalse(skier.get("subscription").has("price"));
+    }
+
+    @Test
+    void testJson_fieldsApplied() throws Exception {
+        mockMvc.perform(get("/skier/all").param("fields", "numSkier,subscription.endDate"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].numSkier").value(1))
+                .andExpect(jsonPath("$[0].firstName").doesNotExist())
+                .andExpect(jsonPath("$[0].subscription.endDate").exists())
+                .andExpect(jsonPath("$[0].subscription.price").doesNotExist());
+    }
+
+    private static Skier skier() {
+        Subscription subscription = new Subscription();
+        subscription.setNumSub(1L);
+        subscription.setTypeSub(TypeSubscription.ANNUAL);
+        subscription.setStartDate(LocalDate.of(2026, 1, 1));
+        subscription.setEndDate(LocalDate.of(2027, 1, 1));
+        subscription.setPrice(900f);
+        Skier skier = new Skier();
+        skier.setNumSkier(1L);
+        skier.setFirstName("Amine");
+        skier.setLastName("Trabelsi");
+        skier.setCity("Tunis");
+        skier.setDateOfBirth(LocalDate.of(1990, 5, 12));
+        skier.setSubscription(subscription);
+        return skier;
+    }
+}
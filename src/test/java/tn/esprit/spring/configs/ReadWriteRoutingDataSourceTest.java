@@ -0,0 +1,148 @@
+package tn.esprit.spring.configs;
+
+import org.junit.jupiter.api.BeforeEach;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Primary and replica are two unrelated embedded databases, each knowing its own name in a probe table,
+ * and the replica heartbeat is written by hand to play the replication lag.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.datasource.url=" + ReadWriteRoutingDataSourceTest.PRIMARY_URL,
+        "station.datasource.replicas[0].url=" + ReadWriteRoutingDataSourceTest.REPLICA_URL,
+        "station.datasource.replicas[0].username=sa",
+        "station.datasource.replicas[0].password=",
+        "station.datasource.max-lag-ms=5000",
+        "spring.datasource.hikari.maximum-pool-size=3",
+        "station.datasource.lag-check-ms=3600000"})
+@ActiveProfiles("test")
+class ReadWriteRoutingDataSourceTest {
+
+    static final String PRIMARY_URL = "jdbc:h2:mem:routing-primary;MODE=MySQL;DB_CLOSE_DELAY=-1;DATABASE_TO_LOWER=TRUE";
+    static final String REPLICA_URL = "jdbc:h2:mem:routing-replica;MODE=MySQL;DB_CLOSE_DELAY=-1;DATABASE_TO_LOWER=TRUE";
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ReplicaLagMonitor replicaLagMonitor;
+
+    @Autowired
+    private ReadWriteRoutingDataSource routingDataSource;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+
+    @BeforeEach
+    void setUp() {
+        JdbcTemplate primary = new JdbcTemplate(dataSource);
+        for (JdbcTemplate database : new JdbcTemplate[]{primary, replica}) {
+            database.execute("create table if not exists probe (name varchar(16))");
+            database.execute("delete from probe");
+            // created by the migrations in production
+            database.execute("create table if not exists replica_heartbeat (id int not null primary key, beat_at bigint not null)");
+        }
+        primary.update("insert into probe (name) values ('primary')");
+        replica.update("insert into probe (name) values ('replica')");
+        replica.execute("delete from replica_heartbeat");
+    }
+
+    @Test
+    void readOnlyTransaction_servedByReplicaInSync() {
+        replicaBeatAt(System.currentTimeMillis());
+
+        assertEquals("replica", probe(true));
+    }
+
+    @Test
+    void readOnlyTransaction_fallsBackToPrimaryWhenReplicaLags() {
+        replicaBeatAt(System.currentTimeMillis() - 60_000);
+
+        assertEquals("primary", probe(true));
+    }
+
+    @Test
+    void readWriteTransaction_alwaysOnPrimary() {
+        replicaBeatAt(System.currentTimeMillis());
+
+        assertEquals("primary", probe(false));
+    }
+
+    @Test
+    void openEntityManager_eachTransactionRoutedOnItsOwn() {
+        replicaBeatAt(System.currentTimeMillis());
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        // what open-in-view does for the length of a request
+        TransactionSynchronizationManager.bindResource(entityManagerFactory, new EntityManagerHolder(entityManager));
+        try {
+            assertEquals("primary", probe(entityManager, false));
+            assertEquals("replica", probe(entityManager, true));
+            assertEquals("primary", probe(entityManager, false));
+        } finally {
+            TransactionSynchronizationManager.unbindResource(entityManagerFactory);
+            entityManager.close();
+        }
+    }
+
+    @Test
+    void pools_getTheHikariSettings() {
+        assertEquals(3, routingDataSource.getPrimary().getMaximumPoolSize());
+        routingDataSource.getReplicas().values().forEach(replica -> assertEquals(3, replica.getMaximumPoolSize()));
+    }
+
+    @Test
+    void meters_boundOnceTheRegistryExists() {
+        probe(false);
+
+        assertNotNull(meterRegistry.find("hikaricp.connections").tag("pool", ReadWriteRoutingDataSource.PRIMARY).gauge());
+        assertNotNull(meterRegistry.find("hikaricp.connections").tag("pool", "replica-0").gauge());
+        assertTrue(meterRegistry.get("datasource.routing.connections").tag("pool", ReadWriteRoutingDataSource.PRIMARY)
+                .tag("reason", "routed").functionCounter().count() > 0);
+        assertNotNull(meterRegistry.find("datasource.replica.lag").tag("pool", "replica-0").gauge());
+    }
+
+    private void replicaBeatAt(long beatAt) {
+        replica.update("insert into replica_heartbeat (id, beat_at) values (1, ?)", beatAt);
+        replicaLagMonitor.check();
+    }
+
+    private String probe(boolean readOnly) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(readOnly);
+        return transaction.execute(status ->
+                new JdbcTemplate(dataSource).queryForObject("select name from probe", String.class));
+    }
+
+    private String probe(EntityManager entityManager, boolean readOnly) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(readOnly);
+        return transaction.execute(status ->
+                (String) entityManager.createNativeQuery("select name from probe").getSingleResult());
+    }
+}
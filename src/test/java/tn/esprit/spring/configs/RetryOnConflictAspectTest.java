@@ -0,0 +1,117 @@
+package tn.esprit.spring.configs;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import tn.esprit.spring.entities.Skier;
+import tn.esprit.spring.services.RetryOnConflict;
+import tn.esprit.spring.services.StaleVersionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RetryOnConflictAspectTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ConflictingService target;
+    private ConflictingService service;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        target = new ConflictingService();
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.setProxyTargetClass(true);
+        factory.addAspect(new RetryOnConflictAspect(meterRegistry));
+        service = factory.getProxy();
+    }
+
+    @Test
+    void testRetry_recoversAfterConflicts() {
+        target.conflicts = 2;
+
+        assertEquals("assigned", service.assign());
+
+        assertEquals(3, target.calls);
+        assertEquals(2.0, count("assign", "retried"));
+        assertEquals(1.0, count("assign", "recovered"));
+    }
+
+    @Test
+    void testRetry_givesUpAfterMaxAttempts() {
+        target.conflicts = 5;
+
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> service.assign());
+
+        assertEquals(3, target.calls);
+        assertEquals(2.0, count("assign", "retried"));
+        assertEquals(1.0, count("assign", "exhausted"));
+    }
+
+    @Test
+    void testRetry_otherExceptionsNotRetried() {
+        assertThrows(IllegalStateException.class, () -> service.fail());
+
+        assertEquals(1, target.calls);
+    }
+
+    @Test
+    void testRetry_staleClientVersionNotRetried() {
+        assertThrows(StaleVersionException.class, () -> service.updateStale());
+
+        assertEquals(1, target.calls);
+        assertEquals(0.0, count("updateStale", "retried"));
+    }
+
+    @Test
+    void testRetry_notAnnotated() {
+        target.conflicts = 1;
+
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> service.update());
+
+        assertEquals(1, target.calls);
+    }
+
+    private double count(String method, String outcome) {
+        Counter counter = meterRegistry.find(RetryOnConflictAspect.CONFLICTS)
+                .tag("method", method).tag("outcome", outcome).counter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    static class ConflictingService {
+        int conflicts;
+        int calls;
+
+        @RetryOnConflict(backoffMs = 1)
+        public String assign() {
+            return call();
+        }
+
+        @RetryOnConflict(backoffMs = 1)
+        public String fail() {
+            calls++;
+            throw new IllegalStateException();
+        }
+
+        public String update() {
+            return call();
+        }
+
+        @RetryOnConflict(backoffMs = 1)
+        public String updateStale() {
+            calls++;
+            throw new StaleVersionException(Skier.class, 1L);
+        }
+
+        private String call() {
+            calls++;
+            if (conflicts-- > 0) {
+                throw new ObjectOptimisticLockingFailureException(Skier.class, 1L);
+            }
+            return "assigned";
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package tn.esprit.spring.configs;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.output.MigrateResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.io.IOException;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Runs the migrations, with the Flyway settings of application.properties, on a database that has the schema
+ * ddl-auto=update created before the migrations existed.
+ */
+class SchemaMigrationTest {
+
+    private DriverManagerDataSource dataSource;
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:migration-" + System.nanoTime() + ";MODE=MySQL;DB_CLOSE_DELAY=-1;DATABASE_TO_LOWER=TRUE",
+                "sa", "");
+        new ResourceDatabasePopulator(new ClassPathResource("db/pre-series-schema.sql")).execute(dataSource);
+        jdbc = new JdbcTemplate(dataSource);
+    }
+
+    @Test
+    void testMigrate_preSeriesSchema_getsEveryVersion() throws IOException {
+        int pending = flyway().info().pending().length;
+
+        MigrateResult result = flyway().migrate();
+
+        // baselined at V0, so V1 runs as well
+        assertEquals(pending, result.migrationsExecuted);
+        assertEquals(0, flyway().info().pending().length);
+        assertEquals("0", flyway().info().applied()[0].getVersion().getVersion());
+    }
+
+    @Test
+    void testMigrate_preSeriesSchema_idGeneratorStartsAboveExistingRegistrations() throws IOException {
+        flyway().migrate();
+
+        Long nextVal = jdbc.queryForObject(
+                "select next_val from id_generator where sequence_name = 'registration'", Long.class);
+        assertEquals(120 + 50, nextVal);
+    }
+
+    @Test
+    void testMigrate_preSeriesSchema_addsTheNewTablesAndColumns() throws IOException {
+        flyway().migrate();
+
+        assertEquals(0, jdbc.queryForObject("select count(*) from waitlist_entry", Integer.class));
+        assertEquals(0, jdbc.queryForObject("select count(*) from outbox_event", Integer.class));
+        assertEquals(0L, jdbc.queryForObject("select version from registration where num_registration = 120", Long.class));
+        assertEquals(0L, jdbc.queryForObject("select version from skier where num_skier = 1", Long.class));
+    }
+
+    @Test
+    void testMigrate_twice_secondRunIsANoOp() throws IOException {
+        flyway().migrate();
+
+        assertEquals(0, flyway().migrate().migrationsExecuted);
+    }
+
+    private Flyway flyway() throws IOException {
+        Properties application = PropertiesLoaderUtils.loadProperties(new ClassPathResource("application.properties"));
+        return Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration")
+                .baselineOnMigrate(Boolean.parseBoolean(application.getProperty("spring.flyway.baseline-on-migrate")))
+                .baselineVersion(application.getProperty("spring.flyway.baseline-version"))
+                .load();
+    }
+}
@@ -0,0 +1,61 @@
+package tn.esprit.spring.configs;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import tn.esprit.spring.services.IPisteServices;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ServiceMetricsAspectTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private IPisteServices target;
+    private IPisteServices service;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        target = mock(IPisteServices.class);
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.addInterface(IPisteServices.class);
+        factory.addAspect(new ServiceMetricsAspect(meterRegistry));
+        service = factory.getProxy();
+    }
+
+    @Test
+    void testTime_oneTimerPerMethodAndOutcome() {
+        when(target.retrieveAllPistes()).thenReturn(Collections.emptyList());
+
+        service.retrieveAllPistes();
+        service.retrieveAllPistes();
+        service.retrievePiste(1L);
+
+        assertEquals(2, timer("retrieveAllPistes", "success", "none").count());
+        assertEquals(1, timer("retrievePiste", "null", "none").count());
+        assertEquals(2, meterRegistry.find(ServiceMetricsAspect.SERVICE_CALLS).timers().size());
+    }
+
+    @Test
+    void testTime_exceptionTagged() {
+        doThrow(new IllegalStateException()).when(target).removePiste(1L);
+
+        assertThrows(IllegalStateException.class, () -> service.removePiste(1L));
+        assertThrows(IllegalStateException.class, () -> service.removePiste(1L));
+
+        assertEquals(2, timer("removePiste", "exception", "IllegalStateException").count());
+    }
+
+    private Timer timer(String method, String outcome, String exception) {
+        return meterRegistry.get(ServiceMetricsAspect.SERVICE_CALLS)
+                .tag("method", method).tag("outcome", outcome).tag("exception", exception).timer();
+    }
+}
@@ -0,0 +1,77 @@
+package tn.esprit.spring.configs;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+class SqlStatementLogConfigTest {
+
+    private SqlStatementLog statementLog;
+    private BeanPostProcessor postProcessor;
+
+    @BeforeEach
+    void setUp() {
+        SqlStatementProperties properties = new SqlStatementProperties();
+        properties.setSampleRate(0);
+        statementLog = new SqlStatementLog(properties);
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerSingleton("sqlStatementLog", statementLog);
+        postProcessor = SqlStatementLogConfig.sqlStatementLogDataSourcePostProcessor(
+                beanFactory.getBeanProvider(SqlStatementLog.class));
+    }
+
+    @Test
+    void testProxy_closesThePool() throws Exception {
+        DataSource pool = mock(DataSource.class, withSettings().extraInterfaces(Closeable.class));
+
+        Object proxy = postProcessor.postProcessAfterInitialization(pool, "dataSource");
+
+        assertTrue(proxy instanceof Closeable);
+        ((Closeable) proxy).close();
+        verify((Closeable) pool).close();
+    }
+
+    @Test
+    void testProxy_notCloseableWhenTheTargetIsNot() {
+        Object proxy = postProcessor.postProcessAfterInitialization(mock(DataSource.class), "dataSource");
+
+        assertTrue(proxy instanceof DataSource);
+        assertFalse(proxy instanceof Closeable);
+    }
+
+    @Test
+    void testStatementBatch_recordedUnderItsSql() throws Exception {
+        DataSource pool = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        when(pool.getConnection()).thenReturn(connection);
+        when(connection.createStatement()).thenReturn(mock(Statement.class));
+        DataSource dataSource = (DataSource) postProcessor.postProcessAfterInitialization(pool, "dataSource");
+
+        Statement statement = dataSource.getConnection().createStatement();
+        statement.addBatch("delete from waitlist_entry");
+        statement.executeBatch();
+        statement.addBatch("delete from waitlist_entry");
+        statement.addBatch("delete from registration");
+        statement.executeBatch();
+
+        List<SqlStatementLog.StatementStats> statements = statementLog.statements();
+        assertEquals(2, statements.size());
+        assertTrue(statements.stream().anyMatch(stats -> "delete from waitlist_entry".equals(stats.getSql())));
+        assertTrue(statements.stream().anyMatch(stats -> SqlStatementLogConfig.BATCH_STATEMENTS.equals(stats.getSql())));
+    }
+}
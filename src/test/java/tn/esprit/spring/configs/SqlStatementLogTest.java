@@ -0,0 +1,67 @@
+package tn.esprit.spring.configs;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SqlStatementLogTest {
+
+    private SqlStatementLog statementLog;
+
+    @BeforeEach
+    void setUp() {
+        SqlStatementProperties properties = new SqlStatementProperties();
+        properties.setMaxStatements(2);
+        properties.setSampleRate(0);
+        statementLog = new SqlStatementLog(properties);
+    }
+
+    @Test
+    void testRecord_countTotalAndMaxPerStatement() {
+        record("select * from skier where num_skier=?", 2);
+        record("select * from skier where num_skier=?", 6);
+        record("select * from piste", 1);
+
+        List<SqlStatementLog.StatementStats> statements = statementLog.statements();
+
+        assertEquals(2, statements.size());
+        SqlStatementLog.StatementStats skier = statements.get(0);
+        assertEquals("select * from skier where num_skier=?", skier.getSql());
+        assertEquals(2, skier.getCount());
+        assertEquals(8.0, skier.getTotalMs(), 0.001);
+        assertEquals(6.0, skier.getMaxMs(), 0.001);
+    }
+
+    @Test
+    void testRecord_statementsOverTheCapCountedTogether() {
+        record("select 1", 1);
+        record("select 2", 1);
+        record("select 3", 1);
+        record("select 4", 1);
+
+        List<SqlStatementLog.StatementStats> statements = statementLog.statements();
+
+        assertEquals(3, statements.size());
+        assertTrue(statements.stream().anyMatch(stats ->
+                SqlStatementLog.OTHER_STATEMENTS.equals(stats.getSql()) && stats.getCount() == 2));
+    }
+
+    @Test
+    void testReset() {
+        record("select 1", 1);
+
+        statementLog.reset();
+
+        assertTrue(statementLog.statements().isEmpty());
+    }
+
+    private void record(String sql, long millis) {
+        statementLog.record(sql, Collections.emptyList(), 0, TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+}
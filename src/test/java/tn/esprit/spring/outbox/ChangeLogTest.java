@@ -0,0 +1,126 @@
+package tn.esprit.spring.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tn.esprit.spring.dto.ChangeRecord;
+import tn.esprit.spring.entities.ChangeType;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChangeLogTest {
+
+    @TempDir
+    Path dir;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private OutboxProperties properties;
+    private ChangeLog changeLog;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        properties = new OutboxProperties();
+        properties.setLogDir(dir.toString());
+        // a few records per segment
+        properties.setSegmentBytes(512);
+        changeLog = new ChangeLog(objectMapper, properties);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        changeLog.close();
+    }
+
+    @Test
+    void testAppend_offsetsAcrossSegments() throws IOException {
+        for (long numEvent = 1; numEvent <= 20; numEvent++) {
+            changeLog.append(records(numEvent));
+        }
+
+        List<ChangeRecord> records = changeLog.read(0, 100);
+
+        assertEquals(20, changeLog.nextOffset());
+        assertEquals(20, records.size());
+        for (int i = 0; i < records.size(); i++) {
+            assertEquals(i, records.get(i).getOffset());
+            assertEquals(i + 1, records.get(i).getNumEvent().intValue());
+        }
+        assertTrue(segmentCount() > 1);
+    }
+
+    @Test
+    void testRead_fromOffsetWithMax() throws IOException {
+        for (long numEvent = 1; numEvent <= 20; numEvent++) {
+            changeLog.append(records(numEvent));
+        }
+
+        List<ChangeRecord> records = changeLog.read(13, 5);
+
+        assertEquals(5, records.size());
+        assertEquals(13, records.get(0).getOffset());
+        assertEquals(17, records.get(4).getOffset());
+        assertTrue(changeLog.read(20, 5).isEmpty());
+    }
+
+    @Test
+    void testCommitOffset() throws IOException {
+        changeLog.append(records(1, 2, 3));
+
+        assertEquals(0, changeLog.committedOffset("billing"));
+        changeLog.commitOffset("billing", 2);
+
+        assertEquals(2, changeLog.committedOffset("billing"));
+        assertEquals(0, changeLog.committedOffset("lift-access"));
+        assertThrows(IllegalArgumentException.class, () -> changeLog.commitOffset("billing", 4));
+        assertThrows(IllegalArgumentException.class, () -> changeLog.commitOffset("../billing", 1));
+    }
+
+    @Test
+    void testReopen_dropsIncompleteLine() throws IOException {
+        changeLog.append(records(1, 2, 3));
+        changeLog.close();
+        Path segment;
+        try (Stream<Path> files = Files.list(dir)) {
+            segment = files.filter(file -> file.toString().endsWith(".log")).max(Path::compareTo).orElseThrow(IllegalStateException::new);
+        }
+        Files.write(segment, "{\"offset\":3,\"numEv".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        changeLog = new ChangeLog(objectMapper, properties);
+        changeLog.append(records(4));
+
+        List<ChangeRecord> records = changeLog.read(0, 10);
+        assertEquals(4, records.size());
+        assertEquals(4, records.get(3).getNumEvent().intValue());
+        assertEquals(3, records.get(3).getOffset());
+    }
+
+    private List<ChangeRecord> records(long... numEvents) {
+        List<ChangeRecord> records = new ArrayList<>();
+        for (long numEvent : numEvents) {
+            records.add(new ChangeRecord(0, numEvent, "subscription", numEvent, ChangeType.UPDATED,
+                    LocalDateTime.of(2024, 1, 1, 0, 0), objectMapper.createObjectNode().put("numSub", numEvent)));
+        }
+        return records;
+    }
+
+    private long segmentCount() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(file -> file.toString().endsWith(".log")).count();
+        }
+    }
+}
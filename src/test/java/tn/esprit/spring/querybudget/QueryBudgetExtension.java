@@ -0,0 +1,24 @@
+package tn.esprit.spring.querybudget;
+
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.opentest4j.AssertionFailedError;
+
+public class QueryBudgetExtension implements BeforeTestExecutionCallback, AfterTestExecutionCallback {
+
+    @Override
+    public void beforeTestExecution(ExtensionContext context) {
+        QueryCounter.reset();
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+        QueryBudget budget = context.getRequiredTestMethod().getAnnotation(QueryBudget.class);
+        int executed = QueryCounter.count();
+        if (budget != null && executed > budget.value()) {
+            throw new AssertionFailedError(context.getDisplayName() + " executed " + executed
+                    + " SQL statements, its budget is " + budget.value(), budget.value(), executed);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package tn.esprit.spring.querybudget;
+
+/**
+ * SQL statements executed by the current thread since the last reset.
+ * Background jobs run on their own threads and never count against a test.
+ */
+public final class QueryCounter {
+
+    private static final ThreadLocal<int[]> COUNT = ThreadLocal.withInitial(() -> new int[1]);
+
+    private QueryCounter() {
+    }
+
+    public static void reset() {
+        COUNT.get()[0] = 0;
+    }
+
+    public static int count() {
+        return COUNT.get()[0];
+    }
+
+    static void increment() {
+        COUNT.get()[0]++;
+    }
+}
@@ -0,0 +1,72 @@
+package tn.esprit.spring.querybudget;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+
+/**
+ * Wraps the application DataSource so that every statement execution is counted by {@link QueryCounter}.
+ */
+@TestConfiguration
+public class QueryCountingConfig {
+
+    @Bean
+    public static BeanPostProcessor queryCountingDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource)) {
+                    return bean;
+                }
+                // still closeable, so the pool is closed with the context
+                return bean instanceof Closeable ? proxy(bean, DataSource.class, Closeable.class) : proxy(bean, DataSource.class);
+            }
+        };
+    }
+
+    private static Object proxy(Object target, Class<?>... types) {
+        return Proxy.newProxyInstance(QueryCountingConfig.class.getClassLoader(), types,
+                (proxy, method, args) -> {
+                    Object result = invoke(target, method, args);
+                    if (method.getName().startsWith("execute")
+                            && (target instanceof Statement)) {
+                        QueryCounter.increment();
+                    }
+                    return wrap(result);
+                });
+    }
+
+    private static Object wrap(Object result) {
+        if (result instanceof CallableStatement) {
+            return proxy(result, CallableStatement.class);
+        }
+        if (result instanceof PreparedStatement) {
+            return proxy(result, PreparedStatement.class);
+        }
+        if (result instanceof Statement) {
+            return proxy(result, Statement.class);
+        }
+        if (result instanceof Connection) {
+            return proxy(result, Connection.class);
+        }
+        return result;
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package tn.esprit.spring.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * The versions are read from the tables, so two instances on the same database agree on them.
+ */
+class CollectionVersionsTest {
+
+    private DriverManagerDataSource dataSource;
+    private JdbcTemplate jdbc;
+    private CollectionVersions collectionVersions;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:versions-" + System.nanoTime() + ";MODE=MySQL;DB_CLOSE_DELAY=-1;DATABASE_TO_LOWER=TRUE",
+                "sa", "");
+        jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("create table piste (num_piste bigint primary key, version bigint not null default 0)");
+        jdbc.execute("create table skier (num_skier bigint primary key, version bigint not null default 0)");
+        jdbc.execute("create table subscription (num_sub bigint primary key, version bigint not null default 0)");
+        jdbc.execute("create table registration (num_registration bigint primary key, version bigint not null default 0)");
+        jdbc.execute("create table excursion (num_skier bigint not null, num_piste bigint not null)");
+        jdbc.execute("create table course (num_course bigint primary key, version bigint not null default 0)");
+        jdbc.update("insert into piste (num_piste) values (1), (2)");
+        jdbc.update("insert into skier (num_skier) values (1)");
+        jdbc.update("insert into course (num_course) values (1)");
+        collectionVersions = new CollectionVersions(dataSource);
+    }
+
+    @Test
+    void testVersion_sameRows_sameVersionOnEveryInstance() {
+        assertEquals(collectionVersions.version(CollectionVersions.PISTES),
+                new CollectionVersions(dataSource).version(CollectionVersions.PISTES));
+    }
+
+    @Test
+    void testVersion_insert() {
+        String pistes = collectionVersions.version(CollectionVersions.PISTES);
+        String courses = collectionVersions.version(CollectionVersions.COURSES);
+
+        jdbc.update("insert into piste (num_piste) values (3)");
+
+        assertNotEquals(pistes, collectionVersions.version(CollectionVersions.PISTES));
+        assertEquals(courses, collectionVersions.version(CollectionVersions.COURSES));
+    }
+
+    @Test
+    void testVersion_update() {
+        String before = collectionVersions.version(CollectionVersions.COURSES);
+
+        jdbc.update("update course set version = version + 1 where num_course = 1");
+
+        assertNotEquals(before, collectionVersions.version(CollectionVersions.COURSES));
+    }
+
+    @Test
+    void testVersion_deleteAndInsertAnother() {
+        String before = collectionVersions.version(CollectionVersions.PISTES);
+
+        jdbc.update("delete from piste where num_piste = 2");
+        jdbc.update("insert into piste (num_piste) values (3)");
+
+        assertNotEquals(before, collectionVersions.version(CollectionVersions.PISTES));
+    }
+
+    @Test
+    void testVersion_pistesFollowTheirSkiersAndRegistrations() {
+        String before = collectionVersions.version(CollectionVersions.PISTES);
+
+        jdbc.update("insert into registration (num_registration) values (1)");
+        String registered = collectionVersions.version(CollectionVersions.PISTES);
+        jdbc.update("insert into excursion (num_skier, num_piste) values (1, 2)");
+
+        assertNotEquals(before, registered);
+        assertNotEquals(registered, collectionVersions.version(CollectionVersions.PISTES));
+    }
+
+    @Test
+    void testVersion_subscriptionsIgnorePistes() {
+        String before = collectionVersions.version(CollectionVersions.SUBSCRIPTIONS);
+
+        jdbc.update("update piste set version = version + 1");
+
+        assertEquals(before, collectionVersions.version(CollectionVersions.SUBSCRIPTIONS));
+    }
+
+    @Test
+    void testVersion_unknownCollection() {
+        assertThrows(IllegalArgumentException.class, () -> collectionVersions.version("instructors"));
+    }
+}
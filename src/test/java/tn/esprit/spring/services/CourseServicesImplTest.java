@@ -8,6 +8,7 @@ import org.mockito.MockitoAnnotations;
 import tn.esprit.spring.entities.Course;
 import tn.esprit.spring.repositories.ICourseRepository;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -22,6 +23,9 @@ class CourseServicesImplTest {
     @Mock
     private ICourseRepository courseRepository;
 
+    @Mock
+    private InstructorWeeksIndex instructorWeeksIndex;
+
     @InjectMocks
     private CourseServicesImpl courseServices;
 
@@ -38,6 +42,34 @@ class CourseServicesImplTest {
         // Set other properties as needed
     }
 
+    // Tests for retrieveCoursesByIds()
+
+    @Test
+    void testRetrieveCoursesByIds_requestOrderWithoutDuplicatesOrUnknownIds() {
+        Course other = new Course();
+        other.setNumCourse(7L);
+        when(courseRepository.findAllById(Arrays.asList(7L, 1L, 99L))).thenReturn(Arrays.asList(course, other));
+
+        List<Course> courses = courseServices.retrieveCoursesByIds(Arrays.asList(7L, 1L, 7L, 99L));
+
+        assertEquals(Arrays.asList(other, course), courses);
+        verify(courseRepository, times(1)).findAllById(any());
+    }
+
+    @Test
+    void testRetrieveCoursesByIds_oneQueryPerChunk() {
+        List<Long> ids = new ArrayList<>();
+        for (long id = 1; id <= BatchLookup.CHUNK_SIZE + 1; id++) {
+            ids.add(id);
+        }
+        when(courseRepository.findAllById(any())).thenReturn(Collections.emptyList());
+
+        assertTrue(courseServices.retrieveCoursesByIds(ids).isEmpty());
+
+        verify(courseRepository).findAllById(ids.subList(0, BatchLookup.CHUNK_SIZE));
+        verify(courseRepository).findAllById(Collections.singletonList((long) BatchLookup.CHUNK_SIZE + 1));
+    }
+
     // Tests for retrieveAllCourses()
 
     @Test
@@ -108,6 +140,33 @@ class CourseServicesImplTest {
         verify(courseRepository, times(1)).save(course);
     }
 
+    @Test
+    void testUpdateCourse_copiesOntoTheStoredCourse() {
+        Course stored = new Course();
+        stored.setNumCourse(1L);
+        stored.setLevel(1);
+        when(courseRepository.findById(1L)).thenReturn(Optional.of(stored));
+        when(courseRepository.save(stored)).thenReturn(stored);
+
+        // no version sent: no precondition
+        Course updatedCourse = courseServices.updateCourse(course);
+
+        assertSame(stored, updatedCourse);
+        assertEquals(2, stored.getLevel());
+        assertEquals(300F, stored.getPrice());
+    }
+
+    @Test
+    void testUpdateCourse_staleClientVersion() {
+        Course stored = new Course();
+        stored.setNumCourse(1L);
+        when(courseRepository.findById(1L)).thenReturn(Optional.of(stored));
+        course.setClientVersion(1L);
+
+        assertThrows(StaleVersionException.class, () -> courseServices.updateCourse(course));
+        verify(courseRepository, never()).save(any(Course.class));
+    }
+
     @Test
     void testUpdateCourse_nullCourse() {
         // Arrange
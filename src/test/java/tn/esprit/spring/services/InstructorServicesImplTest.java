@@ -23,6 +23,9 @@ class InstructorServicesImplTest {
     @Mock
     private ICourseRepository courseRepository;
 
+    @Mock
+    private InstructorWeeksIndex instructorWeeksIndex;
+
     @InjectMocks
     private InstructorServicesImpl instructorServices;
 
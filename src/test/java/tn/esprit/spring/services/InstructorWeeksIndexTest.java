@@ -0,0 +1,147 @@
+package tn.esprit.spring.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import tn.esprit.spring.dto.CourseSupport;
+import tn.esprit.spring.dto.CourseWeekCount;
+import tn.esprit.spring.dto.InstructorCourse;
+import tn.esprit.spring.entities.Course;
+import tn.esprit.spring.entities.Support;
+import tn.esprit.spring.repositories.ICourseRepository;
+import tn.esprit.spring.repositories.IInstructorRepository;
+import tn.esprit.spring.repositories.IRegistrationRepository;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.Mockito.*;
+
+class InstructorWeeksIndexTest {
+
+    @Mock
+    private IRegistrationRepository registrationRepository;
+
+    @Mock
+    private IInstructorRepository instructorRepository;
+
+    @Mock
+    private ICourseRepository courseRepository;
+
+    @InjectMocks
+    private InstructorWeeksIndex index;
+
+    private final Course course = course(1L, Support.SKI);
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        List<CourseSupport> supports = Collections.singletonList(support(1L, Support.SKI));
+        List<InstructorCourse> assignments = Collections.singletonList(assignment(10L, 1L));
+        when(courseRepository.findAllSupports()).thenReturn(supports);
+        when(instructorRepository.findAllCourseAssignments()).thenReturn(assignments);
+    }
+
+    @Test
+    void testRebuild_changeCommittedBeforeTheQueryReadNotCountedTwice() {
+        List<CourseWeekCount> before = Collections.singletonList(weekCount(1L, 3, 1));
+        when(registrationRepository.countGroupByCourseAndWeek()).thenReturn(before);
+        index.rebuild();
+
+        List<CourseWeekCount> after = Arrays.asList(weekCount(1L, 3, 1), weekCount(1L, 5, 1));
+        when(registrationRepository.countGroupByCourseAndWeek()).thenAnswer(invocation -> {
+            // committed, and seen by the query
+            index.registrationAdded(course, 5);
+            return after;
+        });
+        index.rebuild();
+        assertEquals(Optional.of(Arrays.asList(3, 5)), index.weeksOf(10L, Support.SKI));
+
+        index.registrationRemoved(course, 5);
+        assertEquals(Optional.of(Collections.singletonList(3)), index.weeksOf(10L, Support.SKI));
+    }
+
+    @Test
+    void testRebuild_changeCommittedAfterTheQueryReadKept() {
+        List<CourseWeekCount> counts = Collections.singletonList(weekCount(1L, 3, 1));
+        when(registrationRepository.countGroupByCourseAndWeek()).thenReturn(counts);
+        index.rebuild();
+
+        when(instructorRepository.findAllCourseAssignments()).thenAnswer(invocation -> {
+            // committed once the registrations were read
+            index.registrationAdded(course, 7);
+            return Collections.singletonList(assignment(10L, 1L));
+        });
+        index.rebuild();
+
+        assertEquals(Optional.of(Arrays.asList(3, 7)), index.weeksOf(10L, Support.SKI));
+    }
+
+    @Test
+    void testRebuild_firstBuildRunAgainWhenChangedMeanwhile() {
+        List<CourseWeekCount> counts = Arrays.asList(weekCount(1L, 3, 1), weekCount(1L, 5, 1));
+        when(registrationRepository.countGroupByCourseAndWeek())
+                .thenAnswer(invocation -> {
+                    index.registrationAdded(course, 5);
+                    return counts;
+                })
+                .thenReturn(counts);
+
+        index.rebuild();
+
+        verify(registrationRepository, times(2)).countGroupByCourseAndWeek();
+        assertEquals(Optional.of(Arrays.asList(3, 5)), index.weeksOf(10L, Support.SKI));
+    }
+
+    @Test
+    void testWeeksOfAllInstructors_leavesOutInstructorsWithoutWeeks() {
+        List<CourseSupport> supports = Arrays.asList(support(1L, Support.SKI), support(2L, Support.SNOWBOARD));
+        List<InstructorCourse> assignments = Arrays.asList(assignment(10L, 1L), assignment(20L, 2L));
+        List<CourseWeekCount> counts = Collections.singletonList(weekCount(1L, 3, 1));
+        when(courseRepository.findAllSupports()).thenReturn(supports);
+        when(instructorRepository.findAllCourseAssignments()).thenReturn(assignments);
+        when(registrationRepository.countGroupByCourseAndWeek()).thenReturn(counts);
+        index.rebuild();
+
+        Map<Long, List<Integer>> weeks = index.weeksOfAllInstructors(Support.SKI).orElseThrow(IllegalStateException::new);
+
+        assertEquals(Collections.singletonList(3), weeks.get(10L));
+        assertFalse(weeks.containsKey(20L));
+    }
+
+    private static Course course(Long numCourse, Support support) {
+        Course course = new Course();
+        course.setNumCourse(numCourse);
+        course.setSupport(support);
+        return course;
+    }
+
+    private static CourseSupport support(Long numCourse, Support support) {
+        CourseSupport courseSupport = mock(CourseSupport.class);
+        when(courseSupport.getNumCourse()).thenReturn(numCourse);
+        when(courseSupport.getSupport()).thenReturn(support);
+        return courseSupport;
+    }
+
+    private static CourseWeekCount weekCount(Long numCourse, int numWeek, long registrations) {
+        CourseWeekCount count = mock(CourseWeekCount.class);
+        when(count.getNumCourse()).thenReturn(numCourse);
+        when(count.getNumWeek()).thenReturn(numWeek);
+        when(count.getRegistrations()).thenReturn(registrations);
+        return count;
+    }
+
+    private static InstructorCourse assignment(Long numInstructor, Long numCourse) {
+        InstructorCourse assignment = mock(InstructorCourse.class);
+        when(assignment.getNumInstructor()).thenReturn(numInstructor);
+        when(assignment.getNumCourse()).thenReturn(numCourse);
+        return assignment;
+    }
+}
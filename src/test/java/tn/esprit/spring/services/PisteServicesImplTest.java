@@ -93,6 +93,32 @@ class PisteServicesImplTest {
         verify(pisteRepository, times(1)).save(null);
     }
 
+    @Test
+    void testAddPiste_existingIdUpdatesTheStoredPiste() {
+        Piste stored = new Piste();
+        stored.setNumPiste(1L);
+        when(pisteRepository.findById(1L)).thenReturn(Optional.of(stored));
+        when(pisteRepository.save(stored)).thenReturn(stored);
+        piste.setClientVersion(0L);
+
+        Piste savedPiste = pisteServices.addPiste(piste);
+
+        assertSame(stored, savedPiste);
+        assertEquals("Green Valley", stored.getNamePiste());
+        assertEquals(1200, stored.getLength());
+    }
+
+    @Test
+    void testAddPiste_staleClientVersion() {
+        Piste stored = new Piste();
+        stored.setNumPiste(1L);
+        when(pisteRepository.findById(1L)).thenReturn(Optional.of(stored));
+        piste.setClientVersion(1L);
+
+        assertThrows(StaleVersionException.class, () -> pisteServices.addPiste(piste));
+        verify(pisteRepository, never()).save(any(Piste.class));
+    }
+
     // Tests for removePiste()
 
     @Test
@@ -0,0 +1,115 @@
+package tn.esprit.spring.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReadCoalescerTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private ReadCoalescer readCoalescer;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        readCoalescer = new ReadCoalescer(meterRegistry, 60_000);
+    }
+
+    @Test
+    void testLoad_concurrentLookupsShareOneLoad() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> leader = executor.submit(() -> readCoalescer.load("skier", 1L, () -> {
+                loads.incrementAndGet();
+                loading.countDown();
+                await(release);
+                return "skier 1";
+            }));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+            Future<String> follower = executor.submit(() -> readCoalescer.load("skier", 1L, () -> {
+                loads.incrementAndGet();
+                return "another load";
+            }));
+            // the follower is counted as shared before it starts waiting
+            while (count("shared") == 0) {
+                Thread.sleep(1);
+            }
+            release.countDown();
+
+            assertEquals("skier 1", leader.get(5, TimeUnit.SECONDS));
+            assertEquals("skier 1", follower.get(5, TimeUnit.SECONDS));
+            assertEquals(1, loads.get());
+            assertEquals(1, count("loaded"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testLoad_missingIdAnsweredWithoutLoad() {
+        AtomicInteger loads = new AtomicInteger();
+        readCoalescer.load("skier", 500L, () -> "skier 500");
+
+        assertNull(readCoalescer.load("skier", 404L, () -> { loads.incrementAndGet(); return null; }));
+        assertNull(readCoalescer.load("skier", 404L, () -> { loads.incrementAndGet(); return "skier 404"; }));
+
+        assertEquals(1, loads.get());
+        assertEquals(1, count("missing"));
+    }
+
+    @Test
+    void testLoad_idAboveTheHighestFoundNotRemembered() {
+        readCoalescer.load("skier", 41L, () -> "skier 41");
+
+        // 404, then the skier is created with the next IDENTITY value
+        assertNull(readCoalescer.load("skier", 42L, () -> null));
+        assertEquals("skier 42", readCoalescer.load("skier", 42L, () -> "skier 42"));
+        assertEquals(0, count("missing"));
+    }
+
+    @Test
+    void testLoad_highestFoundKeptPerRead() {
+        AtomicInteger loads = new AtomicInteger();
+        readCoalescer.load("course", 500L, () -> "course 500");
+
+        assertNull(readCoalescer.load("skier", 404L, () -> { loads.incrementAndGet(); return null; }));
+        assertNull(readCoalescer.load("skier", 404L, () -> { loads.incrementAndGet(); return null; }));
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testLoad_failureNotRemembered() {
+        assertThrows(IllegalStateException.class,
+                () -> readCoalescer.load("course", 1L, () -> { throw new IllegalStateException("database down"); }));
+
+        assertEquals("course 1", readCoalescer.load("course", 1L, () -> "course 1"));
+    }
+
+    private double count(String result) {
+        Counter counter = meterRegistry.find(ReadCoalescer.COALESCED_READS).tag("result", result).counter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package tn.esprit.spring.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import tn.esprit.spring.dto.SubscriptionRevenue;
+import tn.esprit.spring.entities.Subscription;
+import tn.esprit.spring.entities.TypeSubscription;
+import tn.esprit.spring.repositories.ISubscriptionRepository;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+class RecurringRevenueAggregatorTest {
+
+    @Mock
+    private ISubscriptionRepository subscriptionRepository;
+
+    @InjectMocks
+    private RecurringRevenueAggregator revenueAggregator;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void testReconcile_sameFigureAsPerTypeAverages() {
+        List<SubscriptionRevenue> revenues = Arrays.asList(
+                revenue(TypeSubscription.MONTHLY, 200.0, 2),
+                revenue(TypeSubscription.SEMESTRIEL, 600.0, 1),
+                revenue(TypeSubscription.ANNUAL, 2400.0, 2));
+        when(subscriptionRepository.sumRevenueGroupByTypeSub()).thenReturn(revenues);
+
+        assertEquals(100f + 100f + 100f, revenueAggregator.reconcile(), 0.001f);
+    }
+
+    @Test
+    void testChanges_appliedWithoutQueryingAgain() {
+        List<SubscriptionRevenue> revenues = Arrays.asList(revenue(TypeSubscription.MONTHLY, 200.0, 2));
+        when(subscriptionRepository.sumRevenueGroupByTypeSub()).thenReturn(revenues);
+        revenueAggregator.reconcile();
+
+        revenueAggregator.subscriptionAdded(subscription(TypeSubscription.ANNUAL, 1200f));
+        assertEquals(100f + 100f, revenueAggregator.monthlyRecurringRevenue(), 0.001f);
+
+        revenueAggregator.subscriptionChanged(TypeSubscription.ANNUAL, 1200f, subscription(TypeSubscription.MONTHLY, 400f));
+        assertEquals(200f, revenueAggregator.monthlyRecurringRevenue(), 0.001f);
+
+        revenueAggregator.subscriptionRemoved(subscription(TypeSubscription.MONTHLY, 400f));
+        assertEquals(100f, revenueAggregator.monthlyRecurringRevenue(), 0.001f);
+
+        verify(subscriptionRepository, times(1)).sumRevenueGroupByTypeSub();
+    }
+
+    @Test
+    void testReconcile_changeCommittedWhileQueryingCountedOnce() {
+        List<SubscriptionRevenue> before = Arrays.asList(revenue(TypeSubscription.MONTHLY, 200.0, 2));
+        when(subscriptionRepository.sumRevenueGroupByTypeSub()).thenReturn(before);
+        revenueAggregator.reconcile();
+
+        List<SubscriptionRevenue> after = Arrays.asList(revenue(TypeSubscription.MONTHLY, 500.0, 3));
+        when(subscriptionRepository.sumRevenueGroupByTypeSub()).thenAnswer(invocation -> {
+            // committed, and seen by the query
+            revenueAggregator.subscriptionAdded(subscription(TypeSubscription.MONTHLY, 300f));
+            return after;
+        });
+
+        assertEquals(500f / 3, revenueAggregator.reconcile(), 0.001f);
+        revenueAggregator.subscriptionRemoved(subscription(TypeSubscription.MONTHLY, 300f));
+        assertEquals(100f, revenueAggregator.monthlyRecurringRevenue(), 0.001f);
+    }
+
+    @Test
+    void testReconcile_changeCommittedAfterTheQueryKept() {
+        List<SubscriptionRevenue> revenues = Arrays.asList(revenue(TypeSubscription.MONTHLY, 200.0, 2));
+        when(subscriptionRepository.sumRevenueGroupByTypeSub()).thenReturn(revenues);
+        revenueAggregator.reconcile();
+
+        when(subscriptionRepository.sumRevenueGroupByTypeSub()).thenAnswer(invocation -> {
+            // committed once the query had read
+            revenueAggregator.subscriptionAdded(subscription(TypeSubscription.ANNUAL, 1200f));
+            return revenues;
+        });
+
+        assertEquals(100f + 100f, revenueAggregator.reconcile(), 0.001f);
+    }
+
+    @Test
+    void testReconcile_firstBuildRunAgainWhenChangedMeanwhile() {
+        List<SubscriptionRevenue> revenues = Arrays.asList(revenue(TypeSubscription.MONTHLY, 300.0, 3));
+        when(subscriptionRepository.sumRevenueGroupByTypeSub())
+                .thenAnswer(invocation -> {
+                    revenueAggregator.subscriptionAdded(subscription(TypeSubscription.MONTHLY, 100f));
+                    return revenues;
+                })
+                .thenReturn(revenues);
+
+        assertEquals(100f, revenueAggregator.reconcile(), 0.001f);
+        verify(subscriptionRepository, times(2)).sumRevenueGroupByTypeSub();
+    }
+
+    @Test
+    void testChangesBeforeFirstBuild_leftToTheBuild() {
+        revenueAggregator.subscriptionAdded(subscription(TypeSubscription.MONTHLY, 100f));
+
+        assertEquals(0f, revenueAggregator.monthlyRecurringRevenue(), 0.001f);
+    }
+
+    private static SubscriptionRevenue revenue(TypeSubscription type, Double total, long count) {
+        SubscriptionRevenue revenue = mock(SubscriptionRevenue.class);
+        when(revenue.getTypeSub()).thenReturn(type);
+        when(revenue.getRevenue()).thenReturn(total);
+        when(revenue.getSubscriptions()).thenReturn(count);
+        return revenue;
+    }
+
+    private static Subscription subscription(TypeSubscription type, Float price) {
+        Subscription subscription = new Subscription();
+        subscription.setTypeSub(type);
+        subscription.setPrice(price);
+        return subscription;
+    }
+}
@@ -0,0 +1,206 @@
+package tn.esprit.spring.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import tn.esprit.spring.dto.CourseWeekCount;
+import tn.esprit.spring.entities.Course;
+import tn.esprit.spring.events.RegistrationReleasedEvent;
+import tn.esprit.spring.repositories.IRegistrationRepository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class RegistrationCapacityLedgerTest {
+
+    @Mock
+    private IRegistrationRepository registrationRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private RegistrationCapacityLedger capacityLedger;
+
+    private Course course;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+
+        course = new Course();
+        course.setNumCourse(1L);
+    }
+
+    @Test
+    void testTryAcquire_seededOnceFromRepository() {
+        when(registrationRepository.countByCourseAndNumWeek(course, 5)).thenReturn(4);
+
+        assertTrue(capacityLedger.tryAcquire(course, 5));
+        assertTrue(capacityLedger.tryAcquire(course, 5));
+        assertFalse(capacityLedger.tryAcquire(course, 5));
+
+        verify(registrationRepository, times(1)).countByCourseAndNumWeek(course, 5);
+    }
+
+    @Test
+    void testTryAcquire_concurrentBookingsNeverOverbook() throws Exception {
+        when(registrationRepository.countByCourseAndNumWeek(course, 5)).thenReturn(0);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> attempts = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            attempts.add(executor.submit(() -> {
+                start.await();
+                return capacityLedger.tryAcquire(course, 5);
+            }));
+        }
+
+        start.countDown();
+        int admitted = 0;
+        for (Future<Boolean> attempt : attempts) {
+            if (attempt.get(5, TimeUnit.SECONDS)) {
+                admitted++;
+            }
+        }
+        executor.shutdown();
+
+        assertEquals(RegistrationCapacityLedger.COURSE_CAPACITY, admitted);
+    }
+
+    @Test
+    void testReconcile_realignsWithCommittedRegistrations() {
+        when(registrationRepository.countByCourseAndNumWeek(course, 5)).thenReturn(6);
+        assertFalse(capacityLedger.tryAcquire(course, 5));
+
+        CourseWeekCount count = mock(CourseWeekCount.class);
+        when(count.getNumCourse()).thenReturn(1L);
+        when(count.getNumWeek()).thenReturn(5);
+        when(count.getRegistrations()).thenReturn(5L);
+        when(registrationRepository.countGroupByCourseAndWeek()).thenReturn(Collections.singletonList(count));
+
+        capacityLedger.reconcile();
+
+        assertTrue(capacityLedger.tryAcquire(course, 5));
+        assertFalse(capacityLedger.tryAcquire(course, 5));
+    }
+
+    @Test
+    void testReconcile_slotWithPendingAcquisitionIsLeftAlone() {
+        when(registrationRepository.countByCourseAndNumWeek(course, 5)).thenReturn(0);
+        committedCount(1L);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            assertTrue(capacityLedger.tryAcquire(course, 5));
+            // the booking is already visible to the count, its completion callback has not run yet
+            capacityLedger.reconcile();
+            completeTransaction(TransactionSynchronization.STATUS_COMMITTED);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        capacityLedger.reconcile();
+
+        assertEquals(RegistrationCapacityLedger.COURSE_CAPACITY - 1, acquireAll());
+    }
+
+    @Test
+    void testReconcile_slotWithPendingReleaseIsLeftAlone() {
+        when(registrationRepository.countByCourseAndNumWeek(course, 5)).thenReturn(3);
+        assertTrue(capacityLedger.tryAcquire(course, 5));
+        committedCount(3L);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            capacityLedger.release(1L, 5);
+            capacityLedger.reconcile();
+            completeTransaction(TransactionSynchronization.STATUS_COMMITTED);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        capacityLedger.reconcile();
+
+        assertEquals(RegistrationCapacityLedger.COURSE_CAPACITY - 3, acquireAll());
+    }
+
+    @Test
+    void testReconcile_rejectedAttemptsDoNotCount() {
+        when(registrationRepository.countByCourseAndNumWeek(course, 5)).thenReturn(6);
+        for (int i = 0; i < 3; i++) {
+            assertFalse(capacityLedger.tryAcquire(course, 5));
+        }
+        committedCount(6L);
+
+        capacityLedger.reconcile();
+
+        assertFalse(capacityLedger.tryAcquire(course, 5));
+    }
+
+    @Test
+    void testTryAcquire_freeSeatsKeptForTheWaitingList() {
+        when(registrationRepository.countByCourseAndNumWeek(course, 5)).thenReturn(5);
+        capacityLedger.waitlistLoaded(Collections.singletonMap(new CourseWeek(1L, 5), 2));
+
+        assertFalse(capacityLedger.tryAcquire(course, 5));
+        verify(eventPublisher, times(1)).publishEvent(any(RegistrationReleasedEvent.class));
+
+        assertTrue(capacityLedger.tryAcquireForWaitlist(course, 5));
+        assertFalse(capacityLedger.tryAcquireForWaitlist(course, 5));
+    }
+
+    @Test
+    void testTryAcquire_openAgainOnceTheWaitingListIsServed() {
+        when(registrationRepository.countByCourseAndNumWeek(course, 5)).thenReturn(0);
+        capacityLedger.waitlistChanged(1L, 5, 1);
+        assertFalse(capacityLedger.tryAcquire(course, 5));
+
+        capacityLedger.waitlistChanged(1L, 5, -1);
+
+        assertTrue(capacityLedger.tryAcquire(course, 5));
+    }
+
+    @Test
+    void testReconcile_freedSeatsAnnouncedForPromotion() {
+        when(registrationRepository.countByCourseAndNumWeek(course, 5)).thenReturn(6);
+        assertFalse(capacityLedger.tryAcquire(course, 5));
+        committedCount(4L);
+
+        capacityLedger.reconcile();
+
+        verify(eventPublisher, times(1)).publishEvent(any(RegistrationReleasedEvent.class));
+    }
+
+    private void committedCount(long registrations) {
+        CourseWeekCount count = mock(CourseWeekCount.class);
+        when(count.getNumCourse()).thenReturn(1L);
+        when(count.getNumWeek()).thenReturn(5);
+        when(count.getRegistrations()).thenReturn(registrations);
+        when(registrationRepository.countGroupByCourseAndWeek()).thenReturn(Collections.singletonList(count));
+    }
+
+    private static void completeTransaction(int status) {
+        TransactionSynchronizationManager.getSynchronizations().forEach(synchronization -> synchronization.afterCompletion(status));
+    }
+
+    private int acquireAll() {
+        int admitted = 0;
+        while (capacityLedger.tryAcquire(course, 5)) {
+            admitted++;
+        }
+        return admitted;
+    }
+}
@@ -6,16 +6,22 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import tn.esprit.spring.dto.BulkRegistrationItem;
+import tn.esprit.spring.dto.BulkRegistrationResult;
+import tn.esprit.spring.dto.RegistrationOutcome;
 import tn.esprit.spring.entities.TypeCourse;
 import tn.esprit.spring.entities.Course;
 import tn.esprit.spring.entities.Registration;
 import tn.esprit.spring.entities.Skier;
 import tn.esprit.spring.entities.Support;
+import tn.esprit.spring.events.RegistrationReleasedEvent;
 import tn.esprit.spring.repositories.ICourseRepository;
 import tn.esprit.spring.repositories.IRegistrationRepository;
 import tn.esprit.spring.repositories.ISkierRepository;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
@@ -33,6 +39,18 @@ class RegistrationServicesImplTest {
     @Mock
     private ICourseRepository courseRepository;
 
+    @Mock
+    private RegistrationCapacityLedger capacityLedger;
+
+    @Mock
+    private IWaitlistServices waitlistServices;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private InstructorWeeksIndex instructorWeeksIndex;
+
     @InjectMocks
     private RegistrationServicesImpl registrationServices;
 
@@ -94,6 +112,7 @@ class RegistrationServicesImplTest {
         // Arrange
         when(registrationRepository.findById(1L)).thenReturn(Optional.of(registration));
         when(courseRepository.findById(1L)).thenReturn(Optional.of(course));
+        when(capacityLedger.tryAcquire(course, 5)).thenReturn(true);
         when(registrationRepository.save(any(Registration.class))).thenReturn(registration);
 
         // Act
@@ -107,6 +126,39 @@ class RegistrationServicesImplTest {
         verify(registrationRepository, times(1)).save(registration);
     }
 
+    @Test
+    void testAssignRegistrationToCourse_courseFull() {
+        Course previous = new Course();
+        previous.setNumCourse(2L);
+        registration.setCourse(previous);
+        when(registrationRepository.findById(1L)).thenReturn(Optional.of(registration));
+        when(courseRepository.findById(1L)).thenReturn(Optional.of(course));
+        when(capacityLedger.tryAcquire(course, 5)).thenReturn(false);
+
+        Registration updatedRegistration = registrationServices.assignRegistrationToCourse(1L, 1L);
+
+        assertNull(updatedRegistration);
+        assertEquals(2L, registration.getCourse().getNumCourse());
+        verify(registrationRepository, never()).save(any(Registration.class));
+        verify(capacityLedger, never()).release(anyLong(), anyInt());
+    }
+
+    @Test
+    void testAssignRegistrationToCourse_seatOfPreviousCourseReleased() {
+        Course previous = new Course();
+        previous.setNumCourse(2L);
+        registration.setCourse(previous);
+        when(registrationRepository.findById(1L)).thenReturn(Optional.of(registration));
+        when(courseRepository.findById(1L)).thenReturn(Optional.of(course));
+        when(capacityLedger.tryAcquire(course, 5)).thenReturn(true);
+        when(registrationRepository.save(any(Registration.class))).thenReturn(registration);
+
+        registrationServices.assignRegistrationToCourse(1L, 1L);
+
+        verify(capacityLedger, times(1)).release(2L, 5);
+        verify(eventPublisher, times(1)).publishEvent(any(RegistrationReleasedEvent.class));
+    }
+
     @Test
     void testAssignRegistrationToCourse_registrationNotFound() {
         // Arrange
@@ -168,6 +220,96 @@ class RegistrationServicesImplTest {
         verify(registrationRepository, never()).save(any(Registration.class));
     }
 
+    @Test
+    void testAddRegistrationAndAssignToSkierAndCourse_fullCourseGoesToWaitlist() {
+        // Arrange
+        skier.setDateOfBirth(LocalDate.of(1990, 1, 1));
+        course.setTypeCourse(TypeCourse.COLLECTIVE_ADULT);
+        when(skierRepository.findById(1L)).thenReturn(Optional.of(skier));
+        when(courseRepository.findById(1L)).thenReturn(Optional.of(course));
+        when(registrationRepository.countDistinctByNumWeekAndSkier_NumSkierAndCourse_NumCourse(5, 1L, 1L)).thenReturn(0);
+        when(capacityLedger.tryAcquire(course, 5)).thenReturn(false);
+        when(waitlistServices.addToWaitlist(skier, course, 5)).thenReturn(2L);
+
+        // Act
+        Registration savedRegistration = registrationServices.addRegistrationAndAssignToSkierAndCourse(registration, 1L, 1L);
+
+        // Assert
+        assertNull(savedRegistration);
+        verify(capacityLedger, times(1)).tryAcquire(course, 5);
+        verify(waitlistServices, times(1)).addToWaitlist(skier, course, 5);
+        verify(registrationRepository, never()).countByCourseAndNumWeek(any(Course.class), anyInt());
+        verify(registrationRepository, never()).save(any(Registration.class));
+    }
+
+    // Tests for removeRegistration()
+
+    @Test
+    void testRemoveRegistration_releasesSeat() {
+        // Arrange
+        registration.setCourse(course);
+        when(registrationRepository.findById(1L)).thenReturn(Optional.of(registration));
+
+        // Act
+        registrationServices.removeRegistration(1L);
+
+        // Assert
+        verify(registrationRepository, times(1)).delete(registration);
+        verify(capacityLedger, times(1)).release(1L, 5);
+        verify(eventPublisher, times(1)).publishEvent(new RegistrationReleasedEvent(1L, 5));
+    }
+
+    @Test
+    void testRemoveRegistration_notFound() {
+        // Arrange
+        when(registrationRepository.findById(1L)).thenReturn(Optional.empty());
+
+        // Act
+        registrationServices.removeRegistration(1L);
+
+        // Assert
+        verify(registrationRepository, never()).delete(any(Registration.class));
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+
+    // Tests for addRegistrationsInBulk()
+
+    @Test
+    void testAddRegistrationsInBulk_reportsOutcomePerItem() {
+        // Arrange
+        skier.setDateOfBirth(LocalDate.now().minusYears(10));
+        course.setTypeCourse(TypeCourse.COLLECTIVE_CHILDREN);
+        when(skierRepository.findAllById(anyIterable())).thenReturn(Collections.singletonList(skier));
+        when(courseRepository.findAllById(anyIterable())).thenReturn(Collections.singletonList(course));
+        when(registrationRepository.findSkierCourseWeeks(anyCollection(), anyCollection())).thenReturn(Collections.emptyList());
+        when(capacityLedger.tryAcquire(course, 5)).thenReturn(true);
+        when(capacityLedger.tryAcquire(course, 6)).thenReturn(false);
+        when(registrationRepository.saveAll(anyIterable())).thenAnswer(invocation -> {
+            List<Registration> toSave = invocation.getArgument(0);
+            toSave.forEach(r -> r.setNumRegistration(100L));
+            return toSave;
+        });
+
+        List<BulkRegistrationItem> items = Arrays.asList(
+                new BulkRegistrationItem(1L, 1L, 5),
+                new BulkRegistrationItem(1L, 1L, 5),
+                new BulkRegistrationItem(1L, 1L, 6),
+                new BulkRegistrationItem(2L, 1L, 5));
+
+        // Act
+        List<BulkRegistrationResult> results = registrationServices.addRegistrationsInBulk(items);
+
+        // Assert
+        assertEquals(4, results.size());
+        assertEquals(RegistrationOutcome.REGISTERED, results.get(0).getOutcome());
+        assertEquals(100L, results.get(0).getNumRegistration());
+        assertEquals(RegistrationOutcome.DUPLICATE_IN_REQUEST, results.get(1).getOutcome());
+        assertEquals(RegistrationOutcome.COURSE_FULL, results.get(2).getOutcome());
+        assertEquals(RegistrationOutcome.SKIER_NOT_FOUND, results.get(3).getOutcome());
+        verify(registrationRepository, times(1)).saveAll(anyIterable());
+        verify(registrationRepository, never()).save(any(Registration.class));
+    }
+
     // Tests for numWeeksCourseOfInstructorBySupport()
 
     @Test
@@ -186,6 +328,31 @@ class RegistrationServicesImplTest {
         verify(registrationRepository, times(1)).numWeeksCourseOfInstructorBySupport(1L, Support.SKI);
     }
 
+    @Test
+    void testNumWeeksCourseOfInstructorBySupport_servedFromIndex() {
+        // Arrange
+        when(instructorWeeksIndex.weeksOf(1L, Support.SKI)).thenReturn(Optional.of(Arrays.asList(2, 7)));
+
+        // Act
+        List<Integer> result = registrationServices.numWeeksCourseOfInstructorBySupport(1L, Support.SKI);
+
+        // Assert
+        assertEquals(Arrays.asList(2, 7), result);
+        verify(registrationRepository, never()).numWeeksCourseOfInstructorBySupport(anyLong(), any(Support.class));
+    }
+
+    @Test
+    void testNumWeeksCourseOfInstructorBySupport_fallbackIsDistinctAndSorted() {
+        // Arrange
+        when(registrationRepository.numWeeksCourseOfInstructorBySupport(1L, Support.SKI)).thenReturn(Arrays.asList(3, 1, 3));
+
+        // Act
+        List<Integer> result = registrationServices.numWeeksCourseOfInstructorBySupport(1L, Support.SKI);
+
+        // Assert
+        assertEquals(Arrays.asList(1, 3), result);
+    }
+
     @Test
     void testNumWeeksCourseOfInstructorBySupport_noWeeksFound() {
         // Arrange
@@ -0,0 +1,141 @@
+package tn.esprit.spring.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import tn.esprit.spring.datagen.StationDataGenerator;
+import tn.esprit.spring.datagen.StationDataProperties;
+import tn.esprit.spring.entities.Registration;
+import tn.esprit.spring.entities.Skier;
+import tn.esprit.spring.entities.Subscription;
+import tn.esprit.spring.entities.TypeSubscription;
+import tn.esprit.spring.querybudget.QueryBudget;
+import tn.esprit.spring.querybudget.QueryCountingConfig;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the services against an embedded H2 station and fails when a call issues more
+ * SQL statements than its budget, which is how N+1 regressions show up.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("test")
+@Import(QueryCountingConfig.class)
+class ServiceQueryBudgetTest {
+
+    private static final int SKIERS = 100;
+    private static boolean seeded;
+    // a collective course nobody is registered to, so that every week has seats left
+    private static long emptyCourse;
+
+    @Autowired
+    private ISkierServices skierServices;
+
+    @Autowired
+    private SubscriptionServicesImpl subscriptionServices;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ApplicationContext context;
+
+    @BeforeEach
+    void seedOnce() {
+        if (seeded) {
+            return;
+        }
+        StationDataProperties properties = new StationDataProperties();
+        properties.setSkiers(SKIERS);
+        properties.setCourses(20);
+        properties.setPistes(10);
+        properties.setInstructors(5);
+        properties.setRegistrationsPerSkier(3);
+        new StationDataGenerator(jdbcTemplate, properties, context).generate();
+        emptyCourse = jdbcTemplate.queryForObject("select max(num_course) + 1 from course", Long.class);
+        jdbcTemplate.update("insert into course (num_course, level, type_course, support, price, time_slot) "
+                + "values (?, 1, 'COLLECTIVE_ADULT', 'SKI', 80, 1)", emptyCourse);
+        seeded = true;
+    }
+
+    @Test
+    @QueryBudget(1)
+    void retrieveAllSkiers_loadsRegistrationsInTheSameQuery() {
+        List<Skier> skiers = skierServices.retrieveAllSkiers();
+
+        assertTrue(skiers.size() >= SKIERS);
+        // no session here: an association left lazy would throw
+        assertTrue(skiers.stream().mapToInt(skier -> skier.getRegistrations().size()).sum() >= 3 * SKIERS);
+        skiers.forEach(skier -> assertNotNull(skier.getSubscription().getTypeSub()));
+    }
+
+    @Test
+    @QueryBudget(1)
+    void retrieveSkiersBySubscriptionType_loadsRegistrationsInTheSameQuery() {
+        List<Skier> skiers = skierServices.retrieveSkiersBySubscriptionType(TypeSubscription.MONTHLY);
+
+        assertFalse(skiers.isEmpty());
+        assertTrue(skiers.stream().mapToInt(skier -> skier.getRegistrations().size()).sum() > 0);
+    }
+
+    @Test
+    @QueryBudget(1)
+    void retrieveAllSkiersWithoutRegistrations_loadsSubscriptionsInTheSameQuery() {
+        List<Skier> skiers = skierServices.retrieveAllSkiers(false);
+
+        assertTrue(skiers.size() >= SKIERS);
+        skiers.forEach(skier -> assertNotNull(skier.getSubscription().getEndDate()));
+    }
+
+    @Test
+    @QueryBudget(1)
+    void retrieveSubscriptions_oneJoinQueryPerChunk() {
+        subscriptionServices.retrieveSubscriptions();
+    }
+
+    @Test
+    @QueryBudget(0)
+    void showMonthlyRecurringRevenue_servedFromMemory() {
+        subscriptionServices.showMonthlyRecurringRevenue();
+    }
+
+    @Test
+    // the outbox events of the subscription and the registrations are one more batch,
+    // the course and the registrations of its weeks (capacity) one query each
+    @QueryBudget(9)
+    void addSkierAndAssignToCourse_registrationsInsertedInOneBatch() {
+        Subscription subscription = new Subscription();
+        subscription.setStartDate(LocalDate.now());
+        // addSkierAndAssignToCourse saves it as sent, the listings above expect every subscription to have one
+        subscription.setEndDate(LocalDate.now().plusMonths(1));
+        subscription.setTypeSub(TypeSubscription.MONTHLY);
+        subscription.setPrice(120f);
+        Skier skier = new Skier();
+        skier.setFirstName("Budget");
+        skier.setLastName("Skier");
+        skier.setDateOfBirth(LocalDate.of(1990, 1, 1));
+        skier.setSubscription(subscription);
+        Set<Registration> registrations = new HashSet<>();
+        for (int week = 1; week <= 10; week++) {
+            Registration registration = new Registration();
+            registration.setNumWeek(week);
+            registrations.add(registration);
+        }
+        skier.setRegistrations(registrations);
+
+        Skier saved = skierServices.addSkierAndAssignToCourse(skier, emptyCourse);
+
+        assertNotNull(saved.getNumSkier());
+        assertTrue(saved.getRegistrations().stream().allMatch(registration -> registration.getNumRegistration() != null));
+    }
+}
@@ -5,11 +5,17 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import tn.esprit.spring.dto.KeysetPage;
+import tn.esprit.spring.dto.SkierSummary;
 import tn.esprit.spring.entities.*;
 import tn.esprit.spring.repositories.*;
 
+import javax.persistence.EntityManager;
 import java.time.LocalDate;
 import java.util.*;
+import java.util.stream.IntStream;
 
 import static org.mockito.Mockito.*;
 import static org.junit.jupiter.api.Assertions.*;
@@ -31,6 +37,21 @@ public class SkierServicesImplTest {
     @Mock
     private IPisteRepository pisteRepository;
 
+    @Mock
+    private InstructorWeeksIndex instructorWeeksIndex;
+
+    @Mock
+    private RecurringRevenueAggregator revenueAggregator;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private RegistrationCapacityLedger capacityLedger;
+
+    @Mock
+    private IWaitlistServices waitlistServices;
+
     @InjectMocks
     private SkierServicesImpl skierServices;
 
@@ -55,25 +76,37 @@ public class SkierServicesImplTest {
     @Test
     public void testRetrieveAllSkiers() {
         List<Skier> skiers = Arrays.asList(skier);
-        when(skierRepository.findAll()).thenReturn(skiers);
+        when(skierRepository.findAllWithRegistrations()).thenReturn(skiers);
 
         List<Skier> retrievedSkiers = skierServices.retrieveAllSkiers();
 
         assertNotNull(retrievedSkiers);
         assertEquals(1, retrievedSkiers.size());
 
-        verify(skierRepository, times(1)).findAll();
+        verify(skierRepository, times(1)).findAllWithRegistrations();
+    }
+
+    @Test
+    public void testRetrieveAllSkiers_withoutRegistrations() {
+        List<Skier> skiers = Arrays.asList(skier);
+        when(skierRepository.findAllWithSubscription()).thenReturn(skiers);
+
+        List<Skier> retrievedSkiers = skierServices.retrieveAllSkiers(false);
+
+        assertEquals(1, retrievedSkiers.size());
+        verify(skierRepository, times(1)).findAllWithSubscription();
+        verify(skierRepository, never()).findAllWithRegistrations();
     }
 
     @Test
     public void testRetrieveAllSkiers_EmptyList() {
-        when(skierRepository.findAll()).thenReturn(new ArrayList<>());
+        when(skierRepository.findAllWithRegistrations()).thenReturn(new ArrayList<>());
 
         List<Skier> retrievedSkiers = skierServices.retrieveAllSkiers();
 
         assertTrue(retrievedSkiers.isEmpty());
 
-        verify(skierRepository, times(1)).findAll();
+        verify(skierRepository, times(1)).findAllWithRegistrations();
     }
 
     // Test for addSkier method
@@ -104,6 +137,18 @@ public class SkierServicesImplTest {
         verify(skierRepository, times(1)).save(skier);
     }
 
+    @Test
+    void testAddSkier_staleClientVersion() {
+        skier.setSubscription(subscription);
+        Skier stored = new Skier();
+        stored.setNumSkier(1L);
+        when(skierRepository.findById(1L)).thenReturn(Optional.of(stored));
+        skier.setClientVersion(1L);
+
+        assertThrows(StaleVersionException.class, () -> skierServices.addSkier(skier));
+        verify(skierRepository, never()).save(any(Skier.class));
+    }
+
     // Test for assignSkierToSubscription method
     @Test
     public void testAssignSkierToSubscription() {
@@ -136,8 +181,12 @@ public class SkierServicesImplTest {
     // Test for removeSkier method
     @Test
     public void testRemoveSkier() {
+        skier.setSubscription(subscription);
+        when(skierRepository.findById(1L)).thenReturn(Optional.of(skier));
+
         skierServices.removeSkier(1L);
         verify(skierRepository, times(1)).deleteById(1L);
+        verify(revenueAggregator).subscriptionRemoved(subscription);
     }
 
     @Test
@@ -178,24 +227,60 @@ public class SkierServicesImplTest {
     @Test
     public void testRetrieveSkiersBySubscriptionType() {
         List<Skier> skiers = Arrays.asList(skier);
-        when(skierRepository.findBySubscription_TypeSub(TypeSubscription.ANNUAL)).thenReturn(skiers);
+        when(skierRepository.findDistinctBySubscription_TypeSub(TypeSubscription.ANNUAL)).thenReturn(skiers);
 
         List<Skier> retrievedSkiers = skierServices.retrieveSkiersBySubscriptionType(TypeSubscription.ANNUAL);
 
         assertNotNull(retrievedSkiers);
         assertEquals(1, retrievedSkiers.size());
 
-        verify(skierRepository, times(1)).findBySubscription_TypeSub(TypeSubscription.ANNUAL);
+        verify(skierRepository, times(1)).findDistinctBySubscription_TypeSub(TypeSubscription.ANNUAL);
     }
 
     @Test
     public void testRetrieveSkiersBySubscriptionType_Empty() {
-        when(skierRepository.findBySubscription_TypeSub(TypeSubscription.ANNUAL)).thenReturn(new ArrayList<>());
+        when(skierRepository.findDistinctBySubscription_TypeSub(TypeSubscription.ANNUAL)).thenReturn(new ArrayList<>());
 
         List<Skier> retrievedSkiers = skierServices.retrieveSkiersBySubscriptionType(TypeSubscription.ANNUAL);
 
         assertTrue(retrievedSkiers.isEmpty());
 
-        verify(skierRepository, times(1)).findBySubscription_TypeSub(TypeSubscription.ANNUAL);
+        verify(skierRepository, times(1)).findDistinctBySubscription_TypeSub(TypeSubscription.ANNUAL);
+    }
+
+    @Test
+    public void testRetrieveSkiersAfter_ClampsPageSize() {
+        when(skierRepository.findByNumSkierGreaterThanOrderByNumSkierAsc(eq(1L), any(Pageable.class)))
+                .thenReturn(Arrays.asList(skier));
+
+        List<Skier> page = skierServices.retrieveSkiersAfter(1L, 100000);
+
+        assertEquals(1, page.size());
+        verify(skierRepository).findByNumSkierGreaterThanOrderByNumSkierAsc(1L,
+                PageRequest.of(0, KeysetPage.MAX_SIZE));
+    }
+
+    @Test
+    public void testStreamAllSkiers_ClearsPersistenceContextEveryFetch() {
+        when(skierRepository.streamAll()).thenReturn(IntStream.range(0, 2 * EntityStreams.FETCH_SIZE + 1)
+                .mapToObj(i -> new Skier()));
+        List<Skier> seen = new ArrayList<>();
+
+        skierServices.streamAllSkiers(seen::add);
+
+        assertEquals(2 * EntityStreams.FETCH_SIZE + 1, seen.size());
+        verify(entityManager, times(2)).clear();
+    }
+
+    @Test
+    public void testRetrieveSkierSummariesBySubscriptionType() {
+        SkierSummary summary = mock(SkierSummary.class);
+        when(skierRepository.findSummariesBySubscriptionType(TypeSubscription.ANNUAL)).thenReturn(Arrays.asList(summary));
+
+        List<SkierSummary> summaries = skierServices.retrieveSkierSummariesBySubscriptionType(TypeSubscription.ANNUAL);
+
+        assertEquals(1, summaries.size());
+        verify(skierRepository).findSummariesBySubscriptionType(TypeSubscription.ANNUAL);
+        verify(skierRepository, never()).findDistinctBySubscription_TypeSub(any());
     }
 }
@@ -5,13 +5,15 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
-import tn.esprit.spring.entities.Skier;
+import org.mockito.Spy;
+import org.springframework.data.domain.PageRequest;
+import tn.esprit.spring.dto.ExpiredSubscription;
 import tn.esprit.spring.entities.Subscription;
 import tn.esprit.spring.entities.TypeSubscription;
-import tn.esprit.spring.repositories.ISkierRepository;
 import tn.esprit.spring.repositories.ISubscriptionRepository;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
@@ -19,6 +21,7 @@ import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.*;
 
 class SubscriptionServicesImplTest {
@@ -27,7 +30,10 @@ class SubscriptionServicesImplTest {
     private ISubscriptionRepository subscriptionRepository;
 
     @Mock
-    private ISkierRepository skierRepository;
+    private RecurringRevenueAggregator revenueAggregator;
+
+    @Spy
+    private SubscriptionExpiryCursor expiryCursor = new SubscriptionExpiryCursor();
 
     @InjectMocks
     private SubscriptionServicesImpl subscriptionServices;
@@ -117,33 +123,86 @@ class SubscriptionServicesImplTest {
 
     @Test
     void testRetrieveSubscriptions() {
-        Subscription subscription = new Subscription();
-        subscription.setNumSub(1L);
-        subscription.setEndDate(LocalDate.of(2024, 12, 31));
+        ExpiredSubscription expired = mock(ExpiredSubscription.class);
+        when(expired.getNumSub()).thenReturn(1L);
+        when(expired.getEndDate()).thenReturn(LocalDate.of(2024, 12, 31));
+        when(subscriptionRepository.findExpiredAfter(any(), any(), any(), any())).thenReturn(List.of(expired));
 
-        Skier skier = new Skier();
-        skier.setFirstName("John");
-        skier.setLastName("Doe");
+        subscriptionServices.retrieveSubscriptions();
+
+        verify(subscriptionRepository, times(1)).findExpiredAfter(eq(LocalDate.now()), eq(LocalDate.ofEpochDay(0)), eq(0L),
+                eq(PageRequest.of(0, SubscriptionServicesImpl.EXPIRY_CHUNK_SIZE)));
+        assertEquals(LocalDate.of(2024, 12, 31), expiryCursor.getEndDate());
+        assertEquals(1L, expiryCursor.getNumSub());
+    }
 
-        when(subscriptionRepository.findDistinctOrderByEndDateAsc()).thenReturn(List.of(subscription));
-        when(skierRepository.findBySubscription(subscription)).thenReturn(skier);
+    @Test
+    void testRetrieveSubscriptions_ResumesFromHighWaterMarkInChunks() {
+        List<ExpiredSubscription> fullChunk = new ArrayList<>();
+        for (long i = 1; i <= SubscriptionServicesImpl.EXPIRY_CHUNK_SIZE; i++) {
+            ExpiredSubscription expired = mock(ExpiredSubscription.class);
+            when(expired.getNumSub()).thenReturn(i);
+            when(expired.getEndDate()).thenReturn(LocalDate.of(2024, 1, 1));
+            fullChunk.add(expired);
+        }
+        when(subscriptionRepository.findExpiredAfter(any(), any(), any(), any()))
+                .thenReturn(fullChunk)
+                .thenReturn(new ArrayList<>());
 
         subscriptionServices.retrieveSubscriptions();
 
-        verify(subscriptionRepository, times(1)).findDistinctOrderByEndDateAsc();
-        verify(skierRepository, times(1)).findBySubscription(subscription);
+        verify(subscriptionRepository).findExpiredAfter(any(), eq(LocalDate.of(2024, 1, 1)),
+                eq((long) SubscriptionServicesImpl.EXPIRY_CHUNK_SIZE), any());
+        verify(subscriptionRepository, times(2)).findExpiredAfter(any(), any(), any(), any());
     }
 
     @Test
     void testShowMonthlyRecurringRevenue() {
-        when(subscriptionRepository.recurringRevenueByTypeSubEquals(TypeSubscription.MONTHLY)).thenReturn(1000f);
-        when(subscriptionRepository.recurringRevenueByTypeSubEquals(TypeSubscription.SEMESTRIEL)).thenReturn(6000f);
-        when(subscriptionRepository.recurringRevenueByTypeSubEquals(TypeSubscription.ANNUAL)).thenReturn(12000f);
+        when(revenueAggregator.monthlyRecurringRevenue()).thenReturn(3000f);
 
         subscriptionServices.showMonthlyRecurringRevenue();
 
-        verify(subscriptionRepository, times(1)).recurringRevenueByTypeSubEquals(TypeSubscription.MONTHLY);
-        verify(subscriptionRepository, times(1)).recurringRevenueByTypeSubEquals(TypeSubscription.SEMESTRIEL);
-        verify(subscriptionRepository, times(1)).recurringRevenueByTypeSubEquals(TypeSubscription.ANNUAL);
+        verify(revenueAggregator, times(1)).monthlyRecurringRevenue();
+        verify(subscriptionRepository, never()).recurringRevenueByTypeSubEquals(any());
+    }
+
+    @Test
+    void testUpdateSubscription_MovesRevenueFromPreviousValues() {
+        Subscription stored = new Subscription();
+        stored.setNumSub(1L);
+        stored.setTypeSub(TypeSubscription.MONTHLY);
+        stored.setPrice(50f);
+        Subscription subscription = new Subscription();
+        subscription.setNumSub(1L);
+        subscription.setTypeSub(TypeSubscription.ANNUAL);
+        subscription.setPrice(600f);
+
+        when(subscriptionRepository.findById(1L)).thenReturn(Optional.of(stored));
+        when(subscriptionRepository.save(stored)).thenReturn(stored);
+
+        subscriptionServices.updateSubscription(subscription);
+
+        // the client's values are copied onto the row that was read
+        assertEquals(TypeSubscription.ANNUAL, stored.getTypeSub());
+        assertEquals(600f, stored.getPrice());
+        verify(revenueAggregator).subscriptionChanged(TypeSubscription.MONTHLY, 50f, stored);
+    }
+
+    @Test
+    void testUpdateSubscription_staleClientVersion() {
+        Subscription stored = new Subscription();
+        stored.setNumSub(1L);
+        stored.setPrice(50f);
+        Subscription subscription = new Subscription();
+        subscription.setNumSub(1L);
+        subscription.setPrice(600f);
+        // the stored row is at version 0
+        subscription.setClientVersion(3L);
+
+        when(subscriptionRepository.findById(1L)).thenReturn(Optional.of(stored));
+
+        assertThrows(StaleVersionException.class, () -> subscriptionServices.updateSubscription(subscription));
+        assertEquals(50f, stored.getPrice());
+        verify(subscriptionRepository, never()).save(any());
     }
 }
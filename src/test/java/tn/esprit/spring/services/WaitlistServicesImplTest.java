@@ -0,0 +1,138 @@
+package tn.esprit.spring.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Pageable;
+import tn.esprit.spring.entities.Course;
+import tn.esprit.spring.entities.Registration;
+import tn.esprit.spring.entities.Skier;
+import tn.esprit.spring.entities.WaitlistEntry;
+import tn.esprit.spring.events.WaitlistPromotedEvent;
+import tn.esprit.spring.repositories.ICourseRepository;
+import tn.esprit.spring.repositories.IRegistrationRepository;
+import tn.esprit.spring.repositories.IWaitlistEntryRepository;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class WaitlistServicesImplTest {
+
+    @Mock
+    private IWaitlistEntryRepository waitlistEntryRepository;
+
+    @Mock
+    private IRegistrationRepository registrationRepository;
+
+    @Mock
+    private ICourseRepository courseRepository;
+
+    @Mock
+    private RegistrationCapacityLedger capacityLedger;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private InstructorWeeksIndex instructorWeeksIndex;
+
+    @InjectMocks
+    private WaitlistServicesImpl waitlistServices;
+
+    private Skier skier;
+    private Course course;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+
+        skier = new Skier();
+        skier.setNumSkier(1L);
+
+        course = new Course();
+        course.setNumCourse(1L);
+    }
+
+    @Test
+    void testAddToWaitlist_newEntryGoesToTheBack() {
+        when(waitlistEntryRepository.findBySkier_NumSkierAndCourse_NumCourseAndNumWeek(1L, 1L, 5)).thenReturn(Optional.empty());
+        when(waitlistEntryRepository.save(any(WaitlistEntry.class))).thenAnswer(invocation -> {
+            WaitlistEntry entry = invocation.getArgument(0);
+            entry.setNumEntry(10L);
+            return entry;
+        });
+        when(waitlistEntryRepository.countByCourse_NumCourseAndNumWeekAndNumEntryLessThan(1L, 5, 10L)).thenReturn(3L);
+
+        long position = waitlistServices.addToWaitlist(skier, course, 5);
+
+        assertEquals(4L, position);
+        verify(waitlistEntryRepository, times(1)).save(any(WaitlistEntry.class));
+        verify(capacityLedger, times(1)).waitlistChanged(1L, 5, 1);
+    }
+
+    @Test
+    void testAddToWaitlist_alreadyWaiting() {
+        WaitlistEntry entry = new WaitlistEntry(10L, 5, LocalDateTime.now(), skier, course);
+        when(waitlistEntryRepository.findBySkier_NumSkierAndCourse_NumCourseAndNumWeek(1L, 1L, 5)).thenReturn(Optional.of(entry));
+        when(waitlistEntryRepository.countByCourse_NumCourseAndNumWeekAndNumEntryLessThan(1L, 5, 10L)).thenReturn(0L);
+
+        long position = waitlistServices.addToWaitlist(skier, course, 5);
+
+        assertEquals(1L, position);
+        verify(waitlistEntryRepository, never()).save(any(WaitlistEntry.class));
+        verify(capacityLedger, never()).waitlistChanged(anyLong(), anyInt(), anyInt());
+    }
+
+    @Test
+    void testPromoteWaitlisted_fillsFreedSeatsInOrder() {
+        Skier second = new Skier();
+        second.setNumSkier(2L);
+        WaitlistEntry first = new WaitlistEntry(10L, 5, LocalDateTime.now(), skier, course);
+        WaitlistEntry next = new WaitlistEntry(11L, 5, LocalDateTime.now(), second, course);
+        when(courseRepository.findById(1L)).thenReturn(Optional.of(course));
+        when(waitlistEntryRepository.findByCourse_NumCourseAndNumWeekOrderByNumEntryAsc(eq(1L), eq(5), any(Pageable.class)))
+                .thenReturn(Arrays.asList(first, next));
+        when(registrationRepository.countDistinctByNumWeekAndSkier_NumSkierAndCourse_NumCourse(anyInt(), anyLong(), anyLong())).thenReturn(0);
+        when(capacityLedger.tryAcquireForWaitlist(course, 5)).thenReturn(true, false);
+
+        List<Registration> promoted = waitlistServices.promoteWaitlisted(1L, 5);
+
+        assertEquals(1, promoted.size());
+        assertEquals(1L, promoted.get(0).getSkier().getNumSkier());
+        verify(waitlistEntryRepository, times(1)).deleteAll(Collections.singletonList(first));
+        verify(eventPublisher, times(1)).publishEvent(any(WaitlistPromotedEvent.class));
+        verify(capacityLedger, times(1)).waitlistChanged(1L, 5, -1);
+        verify(capacityLedger, never()).tryAcquire(any(Course.class), anyInt());
+    }
+
+    @Test
+    void testPromoteWaitlisted_emptyQueueStopsKeepingSeats() {
+        when(courseRepository.findById(1L)).thenReturn(Optional.of(course));
+        when(waitlistEntryRepository.findByCourse_NumCourseAndNumWeekOrderByNumEntryAsc(eq(1L), eq(5), any(Pageable.class)))
+                .thenReturn(Collections.emptyList());
+
+        List<Registration> promoted = waitlistServices.promoteWaitlisted(1L, 5);
+
+        assertTrue(promoted.isEmpty());
+        verify(capacityLedger, times(1)).waitlistEmptied(1L, 5);
+    }
+
+    @Test
+    void testPromoteWaitlisted_courseNotFound() {
+        when(courseRepository.findById(1L)).thenReturn(Optional.empty());
+
+        List<Registration> promoted = waitlistServices.promoteWaitlisted(1L, 5);
+
+        assertTrue(promoted.isEmpty());
+        verify(registrationRepository, never()).saveAll(anyIterable());
+    }
+}
@@ -0,0 +1,84 @@
+-- The schema as ddl-auto=update left it before the Flyway migrations, with a few rows in it (SchemaMigrationTest).
+
+create table subscription (
+    num_sub    bigint not null auto_increment,
+    start_date date,
+    end_date   date,
+    price      float,
+    type_sub   integer,
+    primary key (num_sub)
+) engine=InnoDB;
+
+create table skier (
+    num_skier            bigint not null auto_increment,
+    first_name           varchar(255),
+    last_name            varchar(255),
+    date_of_birth        date,
+    city                 varchar(255),
+    subscription_num_sub bigint,
+    primary key (num_skier),
+    constraint uk_skier_subscription unique (subscription_num_sub),
+    constraint fk_skier_subscription foreign key (subscription_num_sub) references subscription (num_sub)
+) engine=InnoDB;
+
+create table piste (
+    num_piste  bigint not null auto_increment,
+    name_piste varchar(255),
+    color      varchar(255),
+    length     integer not null,
+    slope      integer not null,
+    primary key (num_piste)
+) engine=InnoDB;
+
+-- Skier.pistes
+create table excursion (
+    num_skier bigint not null,
+    num_piste bigint not null,
+    primary key (num_skier, num_piste),
+    constraint fk_excursion_skier foreign key (num_skier) references skier (num_skier),
+    constraint fk_excursion_piste foreign key (num_piste) references piste (num_piste)
+) engine=InnoDB;
+
+create table course (
+    num_course  bigint not null auto_increment,
+    level       integer not null,
+    type_course varchar(255),
+    support     varchar(255),
+    price       float,
+    time_slot   integer not null,
+    primary key (num_course)
+) engine=InnoDB;
+
+create table instructor (
+    num_instructor bigint not null auto_increment,
+    first_name     varchar(255),
+    last_name      varchar(255),
+    date_of_hire   date,
+    primary key (num_instructor)
+) engine=InnoDB;
+
+-- Instructor.courses, a unidirectional one-to-many: a course has at most one instructor
+create table instructor_courses (
+    instructor_num_instructor bigint not null,
+    courses_num_course        bigint not null,
+    primary key (instructor_num_instructor, courses_num_course),
+    constraint uk_instructor_courses_course unique (courses_num_course),
+    constraint fk_instructor_courses_instructor foreign key (instructor_num_instructor) references instructor (num_instructor),
+    constraint fk_instructor_courses_course foreign key (courses_num_course) references course (num_course)
+) engine=InnoDB;
+
+create table registration (
+    num_registration  bigint not null auto_increment,
+    num_week          integer not null,
+    skier_num_skier   bigint,
+    course_num_course bigint,
+    primary key (num_registration),
+    constraint fk_registration_skier foreign key (skier_num_skier) references skier (num_skier),
+    constraint fk_registration_course foreign key (course_num_course) references course (num_course)
+) engine=InnoDB;
+
+insert into subscription (num_sub, start_date, end_date, price, type_sub) values (1, '2024-01-01', '2024-12-31', 900, 0);
+insert into skier (num_skier, first_name, last_name, date_of_birth, city, subscription_num_sub)
+values (1, 'Amel', 'Ben Salah', '1990-02-03', 'Tunis', 1);
+insert into course (num_course, level, type_course, support, price, time_slot) values (1, 1, 'COLLECTIVE_ADULT', 'SKI', 120, 2);
+insert into registration (num_registration, num_week, skier_num_skier, course_num_course) values (120, 3, 1, 1);